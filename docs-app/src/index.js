@@ -500,6 +500,13 @@ class App extends React.Component {
                                         higher performance impact than a normal variable, but it should still be negligible in almost all cases.
                                     </li>
                                 </ul>
+                                <p>
+                                    If an expression is particularly expensive (lots of trigonometry, logarithms, sums and the like) and its inputs don't change
+                                    much, you can ask for its results to be remembered by writing it as an object instead:
+                                    <code>{"expression": "sin(current) * ln(need(Some Other Need))", "cacheSize": 16}</code>. The last
+                                    <code>cacheSize</code> (up to 256) distinct sets of inputs will be kept along with their results, so they don't have to be
+                                    calculated again. Simple expressions won't benefit from this, and may even be slowed down by it.
+                                </p>
                             </dl>
                         </dl>
                         <p>
@@ -0,0 +1,87 @@
+package org.winterblade.minecraft.mods.needs.api;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.winterblade.minecraft.mods.needs.config.TickBalancing;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one full pass of the tick manager over every bucket with N players and M registered actions. The players
+ * are stand-ins allocated without running their constructors, so they can't be used for anything but identity; that
+ * rules out conditions, which capture a snapshot of the player's world, but everything else is the real dispatch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TickDispatchBenchmark {
+    private static final int BUCKETS = 5;
+
+    @Param({"20", "100", "500"})
+    public int players;
+
+    @Param({"4", "16"})
+    public int actions;
+
+    /**
+     * If the actions are spread across several intervals and offsets, rather than all sharing the bucket count
+     */
+    @Param({"false", "true"})
+    public boolean mixedIntervals;
+
+    private TickManager perPlayer;
+    private TickManager batched;
+    private int passLength;
+
+    @Setup
+    public void setup(final Blackhole blackhole) throws ReflectiveOperationException {
+        perPlayer = new TickManager(BUCKETS, TickBalancing.COUNT, 0, false, Integer.MAX_VALUE);
+        batched = new TickManager(BUCKETS, TickBalancing.COUNT, 0, false, Integer.MAX_VALUE);
+
+        final Unsafe unsafe = getUnsafe();
+        for (int p = 0; p < players; p++) {
+            final PlayerEntity player = (PlayerEntity) unsafe.allocateInstance(ServerPlayerEntity.class);
+            perPlayer.addPlayer(player);
+            batched.addPlayer(player);
+        }
+
+        passLength = BUCKETS;
+        for (int a = 0; a < actions; a++) {
+            final int id = a;
+            final int interval = mixedIntervals ? BUCKETS * (1 + a % 4) : BUCKETS;
+            final int jitter = mixedIntervals ? interval - 1 : 0;
+            passLength = Math.max(passLength, interval);
+
+            perPlayer.requestElapsedPlayerTickUpdate((player, elapsed) -> blackhole.consume(id + elapsed), interval, jitter);
+            batched.requestBatchPlayerTickUpdate((batch, elapsed, count) -> {
+                for (int i = 0; i < count; i++) {
+                    blackhole.consume(id + elapsed[i]);
+                }
+            }, interval, jitter);
+        }
+    }
+
+    @Benchmark
+    public void perPlayerDispatch() {
+        for (int t = 0; t < passLength; t++) {
+            perPlayer.tick();
+        }
+    }
+
+    @Benchmark
+    public void batchDispatch() {
+        for (int t = 0; t < passLength; t++) {
+            batched.tick();
+        }
+    }
+
+    private static Unsafe getUnsafe() throws ReflectiveOperationException {
+        final Field field = Unsafe.class.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return (Unsafe) field.get(null);
+    }
+}
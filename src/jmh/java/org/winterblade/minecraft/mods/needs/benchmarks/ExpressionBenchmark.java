@@ -0,0 +1,93 @@
+package org.winterblade.minecraft.mods.needs.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+import org.winterblade.minecraft.mods.needs.api.expressions.CountedExpressionContext;
+import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
+import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ExpressionContext#apply} for each of the shapes an expression can be built into. Expressions are
+ * applied without a player; the need-wrapped case stands in for real needs by setting each argument from a supplier
+ * on every call, the same way need values are pushed in; the slot-bound case writes the same values directly. The
+ * cached cases compare an expensive expression with and without a result cache, over inputs that plateau.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExpressionBenchmark {
+    private static final Gson GSON = new Gson();
+
+    private CountedExpressionContext constant;
+    private CountedExpressionContext parsed;
+    private CountedExpressionContext needWrapped;
+    private CountedExpressionContext uncached;
+    private CountedExpressionContext cached;
+
+    private double current = 10;
+    private double count = 3;
+
+    @Setup
+    public void setup() {
+        constant = ExpressionContext.makeConstant(new CountedExpressionContext(), 2);
+        constant.build();
+
+        parsed = GSON.fromJson("\"current * 2 + 1\"", CountedExpressionContext.class);
+        parsed.build();
+
+        needWrapped = GSON.fromJson("\"max(current - count, 0) / 2 + sin(count)\"", CountedExpressionContext.class);
+        needWrapped.build();
+
+        uncached = GSON.fromJson("\"sin(current) * ln(count + 1) + cos(current / count)\"", CountedExpressionContext.class);
+        uncached.build();
+
+        cached = GSON.fromJson("{\"expression\": \"sin(current) * ln(count + 1) + cos(current / count)\", \"cacheSize\": 8}", CountedExpressionContext.class);
+        cached.build();
+    }
+
+    @Benchmark
+    public double constant() {
+        return constant.apply(null);
+    }
+
+    @Benchmark
+    public double parsed() {
+        current += 0.5;
+        parsed.setIfRequired(NeedExpressionContext.CURRENT_NEED_VALUE, () -> current);
+        return parsed.apply(null);
+    }
+
+    @Benchmark
+    public double needWrapped() {
+        current += 0.5;
+        needWrapped.setIfRequired(NeedExpressionContext.CURRENT_NEED_VALUE, () -> current);
+        needWrapped.setIfRequired(CountedExpressionContext.COUNT, () -> count);
+        return needWrapped.apply(null);
+    }
+
+    @Benchmark
+    public double slotBound() {
+        current += 0.5;
+        needWrapped.setCurrentNeedValue(current);
+        needWrapped.setCount(count);
+        return needWrapped.applyAsDouble(null);
+    }
+
+    @Benchmark
+    public double uncached() {
+        current += 0.5;
+        uncached.setCurrentNeedValue(Math.floor(current / 100));
+        uncached.setCount(count);
+        return uncached.applyAsDouble(null);
+    }
+
+    @Benchmark
+    public double cached() {
+        current += 0.5;
+        cached.setCurrentNeedValue(Math.floor(current / 100));
+        cached.setCount(count);
+        return cached.applyAsDouble(null);
+    }
+}
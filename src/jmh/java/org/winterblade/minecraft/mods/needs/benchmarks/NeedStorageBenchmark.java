@@ -0,0 +1,47 @@
+package org.winterblade.minecraft.mods.needs.benchmarks;
+
+import net.minecraft.nbt.CompoundNBT;
+import org.openjdk.jmh.annotations.*;
+import org.winterblade.minecraft.mods.needs.capabilities.customneed.NeedCapability;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the custom need capability's NBT for a player with the given number of needs, each of
+ * which has a couple of levels with adjustments stored.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NeedStorageBenchmark {
+    @Param({"5", "50"})
+    public int needs;
+
+    private NeedCapability capability;
+    private CompoundNBT written;
+
+    @Setup
+    public void setup() {
+        capability = new NeedCapability();
+        for (int i = 0; i < needs; i++) {
+            final String name = "need" + i;
+            capability.setValue(name, i * 1.5);
+            capability.storeLevelAdjustment(name, "low", -i);
+            capability.storeLevelAdjustment(name, "high", i);
+        }
+
+        written = write();
+    }
+
+    @Benchmark
+    public CompoundNBT write() {
+        return NeedCapability.Storage.INSTANCE.writeNBT(null, capability, null);
+    }
+
+    @Benchmark
+    public NeedCapability read() {
+        final NeedCapability target = new NeedCapability();
+        NeedCapability.Storage.INSTANCE.readNBT(null, target, null, written);
+        return target;
+    }
+}
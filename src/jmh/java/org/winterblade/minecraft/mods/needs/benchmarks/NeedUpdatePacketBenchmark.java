@@ -0,0 +1,37 @@
+package org.winterblade.minecraft.mods.needs.benchmarks;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import org.openjdk.jmh.annotations.*;
+import org.winterblade.minecraft.mods.needs.network.NeedUpdatePacket;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures encoding and decoding a need update packet into a reused buffer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NeedUpdatePacketBenchmark {
+    private final PacketBuffer buffer = new PacketBuffer(Unpooled.buffer(256));
+    private final NeedUpdatePacket packet = new NeedUpdatePacket("Thirst", 12.5, 0, 20);
+
+    @Setup
+    public void setup() {
+        packet.encode(buffer);
+    }
+
+    @Benchmark
+    public PacketBuffer encode() {
+        buffer.clear();
+        packet.encode(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public NeedUpdatePacket decode() {
+        buffer.readerIndex(0);
+        return NeedUpdatePacket.decode(buffer);
+    }
+}
@@ -0,0 +1,111 @@
+package org.winterblade.minecraft.mods.needs.util.blocks;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.util.registry.Bootstrap;
+import net.minecraft.world.chunk.ChunkSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Measures counting matching blocks in a cube with {@link BlockScanner}, against real chunk sections filled with a
+ * sprinkling of real block states. Only the world is stood in for; the sections come out of a map instead, the same
+ * way they would from the scanner's per-tick cache once it's warm. Each scan is run with the predicate list tested as
+ * is, and compiled into a {@link CompiledBlockMatcher}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BlockScanBenchmark {
+    private static final int CENTER_X = 8;
+    private static final int CENTER_Y = 64;
+    private static final int CENTER_Z = 8;
+
+    @Param({"2", "4", "8"})
+    public int radius;
+
+    @Param({"1", "30"})
+    public int predicateCount;
+
+    private final Map<Long, ChunkSection> sections = new HashMap<>();
+    private final List<IBlockPredicate> predicates = new ArrayList<>();
+    private BlockScanner.SectionSource source;
+    private Predicate<BlockState> predicateList;
+    private CompiledBlockMatcher compiled;
+
+    @Setup
+    public void setup() {
+        Bootstrap.register();
+        final Random random = new Random(42);
+        final int stateCount = Block.BLOCK_STATE_IDS.size();
+
+        // Mostly air, with a sprinkling of everything else
+        for (int cx = -1; cx <= 1; cx++) {
+            for (int sy = 3; sy <= 4; sy++) {
+                for (int cz = -1; cz <= 1; cz++) {
+                    final ChunkSection section = new ChunkSection(sy << 4);
+                    for (int x = 0; x < 16; x++) {
+                        for (int y = 0; y < 16; y++) {
+                            for (int z = 0; z < 16; z++) {
+                                if (random.nextInt(4) != 0) continue;
+                                section.setBlockState(x, y, z, Block.BLOCK_STATE_IDS.getByValue(1 + random.nextInt(stateCount - 1)));
+                            }
+                        }
+                    }
+                    sections.put(SectionPos.asLong(cx, sy, cz), section);
+                }
+            }
+        }
+
+        source = new BlockScanner.SectionSource() {
+            @Override
+            public int getHeight() {
+                return 256;
+            }
+
+            @Override
+            public ChunkSection getSection(final int cx, final int sy, final int cz) {
+                return sections.get(SectionPos.asLong(cx, sy, cz));
+            }
+        };
+
+        // The sort of predicates a block list deserializes to; some match a single block, some test the state
+        for (int i = 0; i < predicateCount; i++) {
+            final BlockState target = Block.BLOCK_STATE_IDS.getByValue(1 + random.nextInt(stateCount - 1));
+            predicates.add(i % 2 == 0
+                    ? new SimpleBlockPredicate(target.getBlock())
+                    : new BlockStatePredicate((s) -> s == target, 1));
+        }
+        predicates.add(new SimpleBlockPredicate(Blocks.STONE));
+        Collections.sort(predicates);
+
+        predicateList = (state) -> {
+            for (final IBlockPredicate predicate : predicates) {
+                if (predicate.test(state)) return true;
+            }
+            return false;
+        };
+        compiled = new CompiledBlockMatcher(predicates);
+        compiled.test(Blocks.AIR.getDefaultState()); // Compile outside of the measurement
+    }
+
+    @Benchmark
+    public int predicateList() {
+        return count(predicateList);
+    }
+
+    @Benchmark
+    public int compiled() {
+        return count(compiled);
+    }
+
+    private int count(final Predicate<BlockState> matcher) {
+        return BlockScanner.scan(source, CENTER_X - radius, CENTER_Y - radius, CENTER_Z - radius,
+                CENTER_X + radius, CENTER_Y + radius, CENTER_Z + radius, matcher, false);
+    }
+}
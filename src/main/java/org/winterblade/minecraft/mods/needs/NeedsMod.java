@@ -15,6 +15,7 @@ import org.apache.logging.log4j.Logger;
 import org.mariuszgromada.math.mxparser.mXparser;
 import org.winterblade.minecraft.mods.needs.api.registries.NeedRegistry;
 import org.winterblade.minecraft.mods.needs.client.ClientRegistration;
+import org.winterblade.minecraft.mods.needs.commands.NeedsCommand;
 import org.winterblade.minecraft.mods.needs.config.CoreConfig;
 import org.winterblade.minecraft.mods.needs.config.NeedInitializer;
 import org.winterblade.minecraft.mods.needs.documentation.DocumentationBuilder;
@@ -48,6 +49,7 @@ public class NeedsMod
         MinecraftForge.EVENT_BUS.addListener(NeedRegistry.INSTANCE::onServerStarting);
         MinecraftForge.EVENT_BUS.addListener(NeedRegistry.INSTANCE::onServerStarted);
         MinecraftForge.EVENT_BUS.addListener(NeedRegistry.INSTANCE::onServerStopped);
+        MinecraftForge.EVENT_BUS.addListener(NeedsCommand::onServerStarting);
     }
 
     private void setupClient(final FMLClientSetupEvent event) {
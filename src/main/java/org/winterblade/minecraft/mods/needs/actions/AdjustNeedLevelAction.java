@@ -15,6 +15,7 @@ import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
 import org.winterblade.minecraft.mods.needs.api.needs.LazyNeed;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 import org.winterblade.minecraft.mods.needs.api.needs.ReadOnlyNeed;
+import org.winterblade.minecraft.mods.needs.capabilities.PlayerCapabilities;
 import org.winterblade.minecraft.mods.needs.capabilities.customneed.INeedCapability;
 
 @SuppressWarnings("WeakerAccess")
@@ -45,6 +46,7 @@ public class AdjustNeedLevelAction extends LevelAction {
     @Override
     public void onLoaded(final Need parentNeed, final NeedLevel parentLevel) {
         super.onLoaded(parentNeed, parentLevel);
+        amount.setOwner(parentNeed.getName() + " / " + parentLevel.getName() + " / AdjustNeedLevelAction.amount");
         amount.build();
 
         // If there wasn't a need specified, assume they want the parent need.
@@ -67,7 +69,8 @@ public class AdjustNeedLevelAction extends LevelAction {
             final double adjustment = adjust(n, p);
 
             if (adjustment == 0d) return;
-            player.getCapability(CAPABILITY).ifPresent((c) -> c.storeLevelAdjustment(need.getName(), level.getName(), adjustment));
+            final INeedCapability cap = PlayerCapabilities.getNeeds(player);
+            if (cap != null) cap.storeLevelAdjustment(need.getName(), level.getName(), adjustment);
         }, this::onError);
     }
 
@@ -76,10 +79,8 @@ public class AdjustNeedLevelAction extends LevelAction {
         this.need.get((o) -> {
             if (player.world.isRemote) return;
 
-            final double amount = player
-                    .getCapability(CAPABILITY)
-                        .map((c) -> c.getLevelAdjustment(need.getName(), level.getName()))
-                        .orElse(0d);
+            final INeedCapability cap = PlayerCapabilities.getNeeds(player);
+            final double amount = cap != null ? cap.getLevelAdjustment(need.getName(), level.getName()) : 0d;
 
             if (amount == 0d) return;
             TickManager.INSTANCE.doLater(() -> o.adjustValue(player, 0 - amount, BaseManipulator.EXTERNAL));
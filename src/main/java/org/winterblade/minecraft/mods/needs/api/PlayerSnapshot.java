@@ -0,0 +1,112 @@
+package org.winterblade.minecraft.mods.needs.api;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.biome.Biome;
+
+/**
+ * The bits of a player's surroundings that conditions commonly check. Captured snapshots are an immutable copy taken on
+ * the server thread, so that conditions can safely be tested from any other thread; live snapshots just look each
+ * value up through the {@link WorldQueryContext} when it's asked for, so conditions tested on the server thread only
+ * pay for what they read.
+ */
+public final class PlayerSnapshot {
+    private final PlayerEntity player; // Only set for live snapshots
+    private final int dimension;
+    private final BlockPos pos;
+    private final Biome biome;
+    private final double temperature;
+    private final int light;
+    private final int skyLight;
+
+    private PlayerSnapshot(final int dimension, final BlockPos pos, final Biome biome, final double temperature,
+                           final int light, final int skyLight) {
+        this.player = null;
+        this.dimension = dimension;
+        this.pos = pos;
+        this.biome = biome;
+        this.temperature = temperature;
+        this.light = light;
+        this.skyLight = skyLight;
+    }
+
+    private PlayerSnapshot(final PlayerEntity player) {
+        this.player = player;
+        this.dimension = 0;
+        this.pos = null;
+        this.biome = null;
+        this.temperature = 0;
+        this.light = 0;
+        this.skyLight = 0;
+    }
+
+    /**
+     * Creates a snapshot which reads the player's state as it's asked for; it can be kept and reused, but must only
+     * be read from the server thread
+     * @param player The player
+     * @return The snapshot
+     */
+    public static PlayerSnapshot live(final PlayerEntity player) {
+        return new PlayerSnapshot(player);
+    }
+
+    /**
+     * Captures the player's current state; this must be called from the server thread
+     * @param player The player
+     * @return The snapshot
+     */
+    public static PlayerSnapshot capture(final PlayerEntity player) {
+        final WorldQueryContext context = WorldQueryContext.get(player);
+
+        return new PlayerSnapshot(
+            context.getDimension(),
+            context.getPos(),
+            context.getBiome(),
+            context.getTemperature(),
+            context.getLight(),
+            context.getSkyLight()
+        );
+    }
+
+    /**
+     * @return The ID of the dimension the player is in
+     */
+    public int getDimension() {
+        return player != null ? WorldQueryContext.get(player).getDimension() : dimension;
+    }
+
+    /**
+     * @return The block position of the player's feet
+     */
+    public BlockPos getPos() {
+        return player != null ? WorldQueryContext.get(player).getPos() : pos;
+    }
+
+    /**
+     * @return The biome at the player's feet
+     */
+    public Biome getBiome() {
+        return player != null ? WorldQueryContext.get(player).getBiome() : biome;
+    }
+
+    /**
+     * @return The biome temperature at the player's feet
+     */
+    public double getTemperature() {
+        return player != null ? WorldQueryContext.get(player).getTemperature() : temperature;
+    }
+
+    /**
+     * @return The combined light level at the player's feet
+     */
+    public int getLight() {
+        return player != null ? WorldQueryContext.get(player).getLight() : light;
+    }
+
+    /**
+     * @return The sky light level at the player's feet
+     */
+    public int getSkyLight() {
+        return player != null ? WorldQueryContext.get(player).getSkyLight() : skyLight;
+    }
+}
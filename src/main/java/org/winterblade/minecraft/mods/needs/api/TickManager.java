@@ -9,48 +9,250 @@ import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.event.TickEvent;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
 import org.winterblade.minecraft.mods.needs.config.CoreConfig;
+import org.winterblade.minecraft.mods.needs.config.TickBalancing;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.WeakHashMap;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
 
 public class TickManager {
     public static TickManager INSTANCE = new TickManager();
+
+    /**
+     * The number of slots in the timing wheel; must be a power of two. Groups due further out than this
+     * just sit in their slot for more than one revolution.
+     */
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /**
+     * How much weight each new window's measurement gets in a player's running cost
+     */
+    private static final double COST_SMOOTHING = 0.2;
+
+    /**
+     * How far apart, as a fraction of the heaviest bucket, bucket costs must drift before players are moved
+     */
+    private static final double COST_TOLERANCE = 0.1;
+
+    /**
+     * The most players that will be moved per measurement window when balancing by cost
+     */
+    private static final int MAX_COST_MOVES = 4;
+
+    @SuppressWarnings("unchecked")
+    private static final ObjIntConsumer<PlayerEntity>[] NO_ACTIONS = new ObjIntConsumer[0];
+
+    @SuppressWarnings("unchecked")
+    private static final Predicate<PlayerSnapshot>[] NO_CONDITIONS = new Predicate[0];
+
+    private static final BatchAction[] NO_BATCH_ACTIONS = new BatchAction[0];
+
     private final int buckets;
+    private final TickBalancing balancing;
+    private final long budget;
+    private final boolean parallel;
+    private final int parallelThreshold;
+    private final Random random = new Random();
+
+    private final Map<Long, CadenceGroup> groups = new HashMap<>();
+    private final Map<Object, Handle> legacyHandles = new HashMap<>();
+    private final List<List<TrackedPlayer>> players = new ArrayList<>();
+    private final List<List<CadenceGroup>> wheel = new ArrayList<>(WHEEL_SIZE);
+    private final List<CadenceGroup> dueNow = new ArrayList<>();
+    private final Deque<CarriedUpdate> carried = new ArrayDeque<>();
+    private final BitSet groupIds = new BitSet();
 
-    private final WeakHashMap<Object, Consumer<PlayerEntity>> perPlayerTick = new WeakHashMap<>();
-    private final List<List<PlayerEntity>> players = new ArrayList<>();
+    private long currentTick = 0;
+    private boolean needsRebalance;
 
-    private int currentBucket = 0;
+    // Costs are measured over the longest interval, so that every group has had a chance to run
+    private int costWindow;
+    private int windowTicks;
+    private int costMoves;
 
     private TickManager() {
-        MinecraftForge.EVENT_BUS.addListener(this::onPlayerJoin);
-        MinecraftForge.EVENT_BUS.addListener(this::onPlayerLeave);
+        this(
+            CoreConfig.COMMON.tickBuckets.get(),
+            CoreConfig.COMMON.tickBalancing.get(),
+            (long) (CoreConfig.COMMON.tickBudget.get() * 1_000_000),
+            CoreConfig.COMMON.parallelConditions.get(),
+            CoreConfig.COMMON.parallelThreshold.get(),
+            true
+        );
+    }
+
+    /**
+     * Creates a manager which isn't hooked up to the event bus; players have to be added with
+     * {@link TickManager#addPlayer(PlayerEntity)}, and it only ticks when {@link TickManager#tick()} is called
+     * @param buckets           The number of tick buckets
+     * @param balancing         How to balance players across the buckets
+     * @param budget            The time budget per tick, in nanoseconds; 0 for none
+     * @param parallel          If conditions should be tested in parallel
+     * @param parallelThreshold The number of players a bucket needs before its conditions are tested in parallel
+     */
+    TickManager(final int buckets, final TickBalancing balancing, final long budget, final boolean parallel,
+                final int parallelThreshold) {
+        this(buckets, balancing, budget, parallel, parallelThreshold, false);
+    }
 
+    private TickManager(final int buckets, final TickBalancing balancing, final long budget, final boolean parallel,
+                        final int parallelThreshold, final boolean hooked) {
         // Init our buckets
-        buckets = Math.max(CoreConfig.COMMON.tickBuckets.get(), 1);
-        for(int i = 0; i < buckets; i++) {
+        this.buckets = Math.max(buckets, 1);
+        costWindow = this.buckets;
+        this.balancing = balancing;
+        this.budget = budget;
+        this.parallel = parallel;
+        this.parallelThreshold = parallelThreshold;
+
+        for(int i = 0; i < this.buckets; i++) {
             players.add(new ArrayList<>());
         }
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayList<>());
+        }
+
+        if (!hooked) return;
+
+        // Always tick, even with nothing registered, so that the tick-scoped caches keyed on the current tick expire
+        MinecraftForge.EVENT_BUS.addListener(this::onTick);
+        MinecraftForge.EVENT_BUS.addListener(this::onPlayerJoin);
+        MinecraftForge.EVENT_BUS.addListener(this::onPlayerLeave);
+    }
+
+    /**
+     * Sets an action to get called for this need, once every {@link TickManager#getBucketCount()} ticks, per player
+     * @param action The action to call
+     * @return A handle which must be used to unregister the action
+     */
+    public Handle requestPlayerTickUpdate(final Consumer<PlayerEntity> action) {
+        return requestPlayerTickUpdate(action, buckets, 0);
+    }
+
+    /**
+     * Sets an action to get called for this need, once every interval ticks, per player. Players are still spread
+     * across the tick buckets, so each player will be called once per interval, but not all on the same tick.
+     * @param action   The action to call
+     * @param interval The number of ticks between calls for any given player
+     * @param jitter   The maximum number of ticks to randomly offset this action by, so that actions with the same
+     *                 interval don't all land on the same tick; 0 to disable
+     * @return A handle which must be used to unregister the action
+     */
+    public Handle requestPlayerTickUpdate(final Consumer<PlayerEntity> action, final int interval, final int jitter) {
+        return requestElapsedPlayerTickUpdate((p, elapsed) -> action.accept(p), interval, jitter);
+    }
+
+    /**
+     * Sets an action to get called for this need, once every interval ticks, per player; the action is also given the
+     * number of ticks since it was last called for that player, which may be more than the interval if the update was
+     * pushed back by the tick budget, or if the player was moved between buckets.
+     * @param action   The action to call
+     * @param interval The number of ticks between calls for any given player
+     * @param jitter   The maximum number of ticks to randomly offset this action by, so that actions with the same
+     *                 interval don't all land on the same tick; 0 to disable
+     * @return A handle which must be used to unregister the action
+     */
+    public Handle requestElapsedPlayerTickUpdate(final ObjIntConsumer<PlayerEntity> action, final int interval, final int jitter) {
+        return register(null, action, null, interval, jitter);
+    }
+
+    /**
+     * Sets an action to get called once every interval ticks with every player in the bucket that's due, rather than
+     * once per player, so that work can be done for all of them together.
+     * @param action   The action to call
+     * @param interval The number of ticks between calls for any given player
+     * @param jitter   The maximum number of ticks to randomly offset this action by, so that actions with the same
+     *                 interval don't all land on the same tick; 0 to disable
+     * @return A handle which must be used to unregister the action
+     */
+    public Handle requestBatchPlayerTickUpdate(final BatchAction action, final int interval, final int jitter) {
+        return register(null, null, action, interval, jitter);
+    }
+
+    /**
+     * Sets an action to get called for this need, once every interval ticks, per player, as long as the condition
+     * passes. The condition is given a {@link PlayerSnapshot} rather than the player, as it may be tested off of the
+     * server thread; it must not touch the world or anything else which isn't thread safe. The action itself is always
+     * called on the server thread.
+     * @param condition The condition to test
+     * @param action    The action to call when the condition passes
+     * @param interval  The number of ticks between calls for any given player
+     * @param jitter    The maximum number of ticks to randomly offset this action by, so that actions with the same
+     *                  interval don't all land on the same tick; 0 to disable
+     * @return A handle which must be used to unregister the action
+     */
+    public Handle requestConditionalPlayerTickUpdate(final Predicate<PlayerSnapshot> condition,
+                                                     final ObjIntConsumer<PlayerEntity> action, final int interval,
+                                                     final int jitter) {
+        return register(condition, action, null, interval, jitter);
+    }
+
+    /**
+     * Adds the action into the group for its cadence, creating it if necessary
+     * @param condition   The condition to test before calling the action, or null to always call it
+     * @param action      The action, or null if this is a batch action
+     * @param batchAction The batch action, or null if this is a per player action
+     * @param interval    The number of ticks between calls for any given player
+     * @param jitter      The maximum number of ticks to randomly offset this action by
+     * @return The handle
+     */
+    private Handle register(final Predicate<PlayerSnapshot> condition, final ObjIntConsumer<PlayerEntity> action,
+                            final BatchAction batchAction, int interval, final int jitter) {
+        interval = Math.max(interval, 1);
+        final int offset = 0 < jitter ? random.nextInt(Math.min(jitter, interval - 1) + 1) : 0;
+
+        // Actions sharing the same cadence share the same dispatch array
+        final long key = ((long) interval << 32) | offset;
+        CadenceGroup group = groups.get(key);
+        if (group == null) {
+            group = new CadenceGroup(groupIds.nextClearBit(0), interval, offset);
+            groupIds.set(group.id);
+
+            // Group IDs get reused, so make sure nobody remembers running whatever last had this one
+            for (final List<TrackedPlayer> bucket : players) {
+                for (final TrackedPlayer tracked : bucket) {
+                    tracked.reset(group.id);
+                }
+            }
+
+            group.nextTick = getNextTick(group, currentTick + 1);
+            schedule(group);
+            groups.put(key, group);
+            costWindow = Math.max(costWindow, interval);
+        }
+
+        final Handle handle = new Handle(this, group, condition, action, batchAction);
+        group.handles.add(handle);
+        group.dirty = true;
+        return handle;
     }
 
     /**
      * Sets an action to get called for this need, every 5 ticks, per player
      * @param source The source of the action
      * @param action The action to call
+     * @deprecated Hold onto the {@link Handle} from {@link TickManager#requestPlayerTickUpdate(Consumer)} instead
      */
+    @Deprecated
     public void requestPlayerTickUpdate(final Object source, final Consumer<PlayerEntity> action) {
-        // Register us on the first event added:
-        if (perPlayerTick.size() <= 0) MinecraftForge.EVENT_BUS.addListener(this::onTick);
-
-        perPlayerTick.put(source, action);
+        removePlayerTickUpdate(source);
+        legacyHandles.put(source, requestPlayerTickUpdate(action));
     }
 
+    /**
+     * Removes an action registered with {@link TickManager#requestPlayerTickUpdate(Object, Consumer)}
+     * @param source The source of the action
+     * @deprecated Use {@link Handle#unregister()} instead
+     */
+    @Deprecated
     public void removePlayerTickUpdate(final Object source) {
-        perPlayerTick.remove(source);
+        final Handle handle = legacyHandles.remove(source);
+        if (handle != null) handle.unregister();
     }
 
     /**
@@ -70,25 +272,427 @@ public class TickManager {
     }
 
     /**
-     * Gets the number of buckets (ie: number of ticks between player updates)
+     * Gets the number of buckets (ie: the default number of ticks between player updates)
      * @return  The bucket count.
      */
     public int getBucketCount() {
         return buckets;
     }
 
+    /**
+     * Gets the number of server ticks the manager has seen; the server's manager counts every tick, whether or not
+     * anything is registered with it, so this can be used to expire per-tick caches
+     * @return The current tick
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
     /**
      * Called when the server ticks
      * @param event The tick event
      */
     private void onTick(final TickEvent.ServerTickEvent event) {
         if (event.phase != TickEvent.Phase.END) return;
+        tick();
+    }
+
+    /**
+     * Runs everything that's due this tick
+     */
+    void tick() {
+        currentTick++;
+        final long deadline = 0 < budget ? System.nanoTime() + budget : Long.MAX_VALUE;
+
+        // Anything left over from last tick goes first, so nobody gets pushed back twice in a row while there's room
+        final boolean inBudget = runCarried(deadline);
+
+        final List<CadenceGroup> slot = wheel.get((int) (currentTick & WHEEL_MASK));
+        if (!slot.isEmpty()) dispatch(slot, deadline, inBudget);
+
+        if (balancing == TickBalancing.COST && costWindow <= ++windowTicks) onWindowEnd();
+
+        // Groups don't all line up with each other, so moves are only made between buckets which are at the same
+        // point in every group's cycle; anything that can't be moved this tick is tried again on the next
+        if (needsRebalance) rebalance();
+    }
+
+    /**
+     * Runs the updates which didn't fit into previous ticks, until they run out or the budget does; at least one will
+     * always be run, so they can't be starved forever
+     * @param deadline The {@link System#nanoTime()} by which to stop
+     * @return True if there's still time left in the budget
+     */
+    private boolean runCarried(final long deadline) {
+        if (carried.isEmpty()) return true;
+
+        final boolean measure = balancing == TickBalancing.COST;
+        do {
+            final CarriedUpdate update = carried.poll();
+            if (update.group.cancelled || update.player.removed) continue;
+
+            run(update.group, update.player, measure, null, 0);
+            runBatch(update.group, measure);
+        } while (!carried.isEmpty() && System.nanoTime() < deadline);
+
+        return carried.isEmpty();
+    }
+
+    /**
+     * Runs every group in the slot which is due this tick
+     * @param slot     The wheel slot for this tick
+     * @param deadline The {@link System#nanoTime()} by which to stop, and carry the rest over to the next tick
+     * @param inBudget If there's any time left in the budget at all
+     */
+    private void dispatch(final List<CadenceGroup> slot, final long deadline, boolean inBudget) {
+        final boolean measure = balancing == TickBalancing.COST;
+        final boolean budgeted = deadline != Long.MAX_VALUE;
+
+        // Pull everything that's due out of the slot first, as it may get rescheduled back into it
+        for (int i = slot.size() - 1; 0 <= i; i--) {
+            final CadenceGroup group = slot.get(i);
+            if (!group.cancelled && group.nextTick != currentTick) continue;
+
+            slot.set(i, slot.get(slot.size() - 1));
+            slot.remove(slot.size() - 1);
+            if (!group.cancelled) dueNow.add(group);
+        }
+
+        for (final CadenceGroup group : dueNow) {
+            if (group.cancelled) continue; // Emptied out by something earlier in this tick
+            if (group.dirty) group.rebuild();
+
+            // Run every bucket that lines up with this phase of the group's interval
+            final int phase = (int) Math.floorMod(currentTick - group.offset, (long) group.interval);
+            for (int b = phase; b < buckets; b += group.interval) {
+                final List<TrackedPlayer> bucket = players.get(b);
+                final boolean[] results = inBudget ? testInParallel(group, bucket) : null;
+
+                for (int i = 0; i < bucket.size(); i++) {
+                    final TrackedPlayer tracked = bucket.get(i);
+                    if (tracked.player == null) continue; // How?
+
+                    // Still waiting on the last one; when it runs, it'll cover this one too
+                    if (tracked.isCarried(group.id)) continue;
+
+                    if (inBudget && budgeted) inBudget = System.nanoTime() < deadline;
+                    if (!inBudget) {
+                        tracked.setCarried(group.id);
+                        carried.add(new CarriedUpdate(group, tracked));
+                        continue;
+                    }
+
+                    run(group, tracked, measure, results, i);
+                }
+
+                runBatch(group, measure);
+            }
+
+            group.nextTick = getNextTick(group, currentTick + 1);
+            schedule(group);
+        }
+        dueNow.clear();
+    }
+
+    /**
+     * Tests all of the group's conditions for every player in the bucket across the common fork/join pool, if the
+     * bucket is large enough to be worth it
+     * @param group  The group
+     * @param bucket The bucket
+     * @return The results, indexed by player then condition; null if they weren't tested
+     */
+    private boolean[] testInParallel(final CadenceGroup group, final List<TrackedPlayer> bucket) {
+        final Predicate<PlayerSnapshot>[] conditions = group.conditions;
+        if (!parallel || conditions.length <= 0 || bucket.size() < parallelThreshold) return null;
+
+        // Anything that touches the world has to happen here, on the server thread
+        final PlayerSnapshot[] snapshots = new PlayerSnapshot[bucket.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = bucket.get(i).getSnapshot(currentTick);
+        }
+
+        final boolean[] results = new boolean[snapshots.length * conditions.length];
+        try {
+            IntStream.range(0, results.length)
+                    .parallel()
+                    .forEach((i) -> results[i] = conditions[i % conditions.length].test(snapshots[i / conditions.length]));
+        } catch (final RuntimeException e) {
+            NeedsMod.LOGGER.error("Error testing conditions in parallel; they'll be tested on the server thread instead.", e);
+            return null;
+        }
+
+        return results;
+    }
+
+    /**
+     * Runs all of the group's actions for the player
+     * @param group   The group
+     * @param tracked The player
+     * @param measure If the time taken should be added to the player's cost
+     * @param results The results of the group's conditions from {@link TickManager#testInParallel(CadenceGroup, List)},
+     *                or null to test them now
+     * @param index   The index of the player in the results
+     */
+    private void run(final CadenceGroup group, final TrackedPlayer tracked, final boolean measure,
+                     final boolean[] results, final int index) {
+        // The results line up with the group as it was when they were tested, so it can't change underneath them
+        if (group.dirty && results == null) group.rebuild();
+
+        final PlayerEntity p = tracked.player;
+        final int elapsed = tracked.markRun(group, currentTick);
+
+        final long start = measure ? System.nanoTime() : 0;
+        for (final ObjIntConsumer<PlayerEntity> action : group.actions) {
+            action.accept(p, elapsed);
+        }
+
+        final Predicate<PlayerSnapshot>[] conditions = group.conditions;
+        if (0 < conditions.length) {
+            final PlayerSnapshot snapshot = results == null ? tracked.getLiveSnapshot() : null;
+            for (int c = 0; c < conditions.length; c++) {
+                final boolean passed = results != null
+                        ? results[index * conditions.length + c]
+                        : conditions[c].test(snapshot);
+
+                if (passed) group.conditionalActions[c].accept(p, elapsed);
+            }
+        }
+        if (measure) tracked.windowCost += System.nanoTime() - start;
+
+        if (0 < group.batchActions.length) group.addToBatch(tracked, elapsed);
+    }
+
+    /**
+     * Runs the group's batch actions for every player collected since the last batch
+     * @param group   The group
+     * @param measure If the time taken should be split between the players' costs
+     */
+    private void runBatch(final CadenceGroup group, final boolean measure) {
+        final int count = group.batchCount;
+        if (count <= 0) return;
+
+        final long start = measure ? System.nanoTime() : 0;
+        for (final BatchAction action : group.batchActions) {
+            action.accept(group.batchPlayers, group.batchElapsed, count);
+        }
+
+        if (measure) {
+            final long share = (System.nanoTime() - start) / count;
+            for (int i = 0; i < count; i++) {
+                group.batchTracked[i].windowCost += share;
+            }
+        }
+
+        group.clearBatch();
+    }
+
+    /**
+     * Called once every group has had a chance to run for every bucket; folds in the measured costs and starts looking
+     * for players to move
+     */
+    private void onWindowEnd() {
+        for (final List<TrackedPlayer> bucket : players) {
+            for (final TrackedPlayer tracked : bucket) {
+                tracked.cost += (tracked.windowCost - tracked.cost) * COST_SMOOTHING;
+                tracked.windowCost = 0;
+            }
+        }
+
+        // Costs drift on their own, so always take a look
+        windowTicks = 0;
+        costMoves = 0;
+        needsRebalance = true;
+    }
+
+    /**
+     * Moves what players it can between buckets, stopping once the buckets are balanced
+     */
+    private void rebalance() {
+        final boolean[][] states = getRunStates();
+        final boolean balanced = balancing == TickBalancing.COST ? rebalanceByCost(states) : rebalanceByCount(states);
+        if (balanced) needsRebalance = false;
+    }
+
+    /**
+     * Works out, for every bucket, which groups have already run it in their current cycle. A player can only be moved
+     * between two buckets that agree on every group: moving from a bucket that has run to one that hasn't would run
+     * them twice in the same cycle, and the other way around would skip them.
+     * @return The states, indexed by bucket then group
+     */
+    private boolean[][] getRunStates() {
+        final boolean[][] states = new boolean[buckets][groups.size()];
+
+        int g = 0;
+        for (final CadenceGroup group : groups.values()) {
+            final long phase = Math.floorMod(currentTick - group.offset, (long) group.interval);
+            for (int b = 0; b < buckets; b++) {
+                states[b][g] = b % group.interval <= phase;
+            }
+            g++;
+        }
+        return states;
+    }
+
+    /**
+     * Moves players from fuller buckets into emptier ones until they're all within one player of each other
+     * @param states The buckets' run states, from {@link TickManager#getRunStates()}
+     * @return True if the buckets are balanced
+     */
+    private boolean rebalanceByCount(final boolean[][] states) {
+        while (true) {
+            int from = -1;
+            int to = -1;
+            int bestGap = 1;
+            for (int s = 0; s < buckets; s++) {
+                for (int d = 0; d < buckets; d++) {
+                    final int gap = players.get(s).size() - players.get(d).size();
+                    if (gap <= bestGap || !Arrays.equals(states[s], states[d])) continue;
+
+                    from = s;
+                    to = d;
+                    bestGap = gap;
+                }
+            }
+
+            if (from < 0) break;
+            final List<TrackedPlayer> fullest = players.get(from);
+            players.get(to).add(fullest.remove(fullest.size() - 1));
+        }
+
+        final int fullest = Collections.max(players, Comparator.comparingInt(List::size)).size();
+        final int emptiest = Collections.min(players, Comparator.comparingInt(List::size)).size();
+        return fullest - emptiest <= 1;
+    }
+
+    /**
+     * Moves a handful of players from more expensive buckets into cheaper ones, as long as it narrows the gap between
+     * them by enough to be worth it
+     * @param states The buckets' run states, from {@link TickManager#getRunStates()}
+     * @return True if there's nothing more to do until the next window
+     */
+    private boolean rebalanceByCost(final boolean[][] states) {
+        final double[] costs = new double[buckets];
+        for (int b = 0; b < buckets; b++) {
+            costs[b] = getCost(players.get(b));
+        }
+
+        while (costMoves < MAX_COST_MOVES) {
+            int from = -1;
+            int to = -1;
+            TrackedPlayer best = null;
+            double bestGap = 0;
+            for (int s = 0; s < buckets; s++) {
+                for (int d = 0; d < buckets; d++) {
+                    final double gap = costs[s] - costs[d];
+                    if (gap <= bestGap || gap <= costs[s] * COST_TOLERANCE || !Arrays.equals(states[s], states[d])) {
+                        continue;
+                    }
+
+                    final TrackedPlayer candidate = getCostMove(players.get(s), gap);
+                    if (candidate == null) continue;
+
+                    from = s;
+                    to = d;
+                    best = candidate;
+                    bestGap = gap;
+                }
+            }
+
+            if (best == null) break;
+            players.get(from).remove(best);
+            players.get(to).add(best);
+            costs[from] -= best.cost;
+            costs[to] += best.cost;
+            costMoves++;
+        }
+
+        if (MAX_COST_MOVES <= costMoves) return true;
+
+        double heaviest = 0;
+        double lightest = Double.MAX_VALUE;
+        for (final double cost : costs) {
+            heaviest = Math.max(heaviest, cost);
+            lightest = Math.min(lightest, cost);
+        }
+        return heaviest - lightest <= heaviest * COST_TOLERANCE;
+    }
+
+    /**
+     * Picks the player to move out of the bucket to narrow the gap to another bucket
+     * @param bucket The bucket
+     * @param gap    The difference in cost between the buckets
+     * @return The player, or null if moving anyone wouldn't narrow the gap
+     */
+    private static TrackedPlayer getCostMove(final List<TrackedPlayer> bucket, final double gap) {
+        // Moving a player narrows the gap as long as it costs less than the gap; the closer to half of it, the better
+        TrackedPlayer best = null;
+        double bestDistance = Double.MAX_VALUE;
+        for (final TrackedPlayer tracked : bucket) {
+            if (gap <= tracked.cost) continue;
 
-        players.get(currentBucket++).forEach((p) -> {
-            if (p == null) return; // How?
-            perPlayerTick.forEach((k, v) -> v.accept(p));
-        });
-        if (buckets <= currentBucket) currentBucket = 0;
+            final double distance = Math.abs(tracked.cost - gap / 2);
+            if (distance < bestDistance) {
+                best = tracked;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the total measured cost of the bucket
+     * @param bucket The bucket
+     * @return The cost, in nanoseconds per window
+     */
+    private static double getCost(final List<TrackedPlayer> bucket) {
+        double cost = 0;
+        for (final TrackedPlayer tracked : bucket) {
+            cost += tracked.cost;
+        }
+        return cost;
+    }
+
+    /**
+     * Removes the handle from its group, dropping the group entirely once it's empty
+     * @param handle The handle to remove
+     */
+    private void unregister(final Handle handle) {
+        final CadenceGroup group = handle.group;
+        if (!group.handles.remove(handle)) return;
+
+        group.dirty = true;
+        if (!group.handles.isEmpty()) return;
+
+        // This will get dropped from the wheel the next time its slot comes up
+        group.cancelled = true;
+        groups.remove(((long) group.interval << 32) | group.offset);
+        groupIds.clear(group.id);
+
+        costWindow = buckets;
+        for (final CadenceGroup remaining : groups.values()) {
+            costWindow = Math.max(costWindow, remaining.interval);
+        }
+    }
+
+    /**
+     * Gets the next tick, at or after the given one, that the group will have any buckets to run
+     * @param group The group
+     * @param from  The tick to start looking from
+     * @return The next tick
+     */
+    private long getNextTick(final CadenceGroup group, final long from) {
+        final int phase = (int) Math.floorMod(from - group.offset, (long) group.interval);
+
+        // Intervals longer than the bucket count have phases with nothing to run; skip straight past them
+        return phase < buckets ? from : from + (group.interval - phase);
+    }
+
+    /**
+     * Places the group into the wheel slot for its next tick
+     * @param group The group
+     */
+    private void schedule(final CadenceGroup group) {
+        wheel.get((int) (group.nextTick & WHEEL_MASK)).add(group);
     }
 
     /**
@@ -97,7 +701,33 @@ public class TickManager {
      */
     private void onPlayerJoin(@SuppressWarnings("unused") final PlayerEvent.PlayerLoggedInEvent event) {
         // Fired after the player is added to the server player list
-        players.stream().min(Comparator.comparingInt(List::size)).ifPresent((l) -> l.add(event.getPlayer()));
+        addPlayer(event.getPlayer());
+    }
+
+    /**
+     * Puts the player into whichever bucket they'll fit into best
+     * @param player The player
+     */
+    void addPlayer(final PlayerEntity player) {
+        final TrackedPlayer tracked = new TrackedPlayer(player);
+        if (balancing != TickBalancing.COST) {
+            Collections.min(players, Comparator.comparingInt(List::size)).add(tracked);
+            return;
+        }
+
+        // Until they've been measured, assume they'll cost about as much as everyone else
+        int count = 0;
+        double total = 0;
+        for (final List<TrackedPlayer> bucket : players) {
+            count += bucket.size();
+            total += getCost(bucket);
+        }
+        if (0 < count) tracked.cost = total / count;
+
+        Collections.min(
+            players,
+            Comparator.comparingDouble(TickManager::getCost).thenComparingInt(List::size)
+        ).add(tracked);
     }
 
     /**
@@ -106,10 +736,244 @@ public class TickManager {
      */
     private void onPlayerLeave(@SuppressWarnings("unused") final PlayerEvent.PlayerLoggedOutEvent event) {
         // Fired _before_ the player is removed from the player list
-        for (final List<PlayerEntity> bucket : players) {
-            if(bucket.remove(event.getPlayer())) return;
+        for (final List<TrackedPlayer> bucket : players) {
+            final Iterator<TrackedPlayer> iterator = bucket.iterator();
+            while (iterator.hasNext()) {
+                final TrackedPlayer tracked = iterator.next();
+                if (tracked.player != event.getPlayer()) continue;
+
+                iterator.remove();
+                tracked.removed = true;
+
+                // Moves wait until they can be made without anyone getting skipped or run twice
+                needsRebalance = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * An action called with a whole batch of players at once
+     */
+    @FunctionalInterface
+    public interface BatchAction {
+        /**
+         * Called with the players who are due
+         * @param players The players; only the first count entries are valid
+         * @param elapsed The number of ticks since the action was last called for each player
+         * @param count   The number of players
+         */
+        void accept(PlayerEntity[] players, int[] elapsed, int count);
+    }
+
+    /**
+     * A registered tick action; call {@link Handle#unregister()} once the action should no longer be called.
+     */
+    public static final class Handle {
+        private final TickManager manager;
+        private final CadenceGroup group;
+        private final Predicate<PlayerSnapshot> condition;
+        private final ObjIntConsumer<PlayerEntity> action;
+        private final BatchAction batchAction;
+
+        private Handle(final TickManager manager, final CadenceGroup group, final Predicate<PlayerSnapshot> condition,
+                       final ObjIntConsumer<PlayerEntity> action, final BatchAction batchAction) {
+            this.manager = manager;
+            this.group = group;
+            this.condition = condition;
+            this.action = action;
+            this.batchAction = batchAction;
+        }
+
+        /**
+         * Stops the action from being called; takes effect from the next tick the action would have run on
+         */
+        public void unregister() {
+            manager.unregister(this);
+        }
+    }
+
+    /**
+     * A player in a tick bucket, along with how long they've been taking to update
+     */
+    private static class TrackedPlayer {
+        private final PlayerEntity player;
+
+        /**
+         * The smoothed time spent on this player per window, in nanoseconds
+         */
+        private double cost;
+
+        /**
+         * The time spent on this player so far this window, in nanoseconds
+         */
+        private long windowCost;
+
+        /**
+         * The last tick each group was run for this player, by group ID; 0 if it never has been
+         */
+        private long[] lastRun = new long[0];
+
+        /**
+         * If each group has an update for this player waiting in the carry-over queue, by group ID
+         */
+        private boolean[] carried = new boolean[0];
+
+        private boolean removed;
+
+        private PlayerSnapshot snapshot;
+        private long snapshotTick;
+        private PlayerSnapshot live;
+
+        TrackedPlayer(final PlayerEntity player) {
+            this.player = player;
+        }
+
+        /**
+         * Gets the snapshot of the player for the tick, capturing it if it hasn't been already
+         * @param tick The current tick
+         * @return The snapshot
+         */
+        PlayerSnapshot getSnapshot(final long tick) {
+            if (snapshot == null || snapshotTick != tick) {
+                snapshot = PlayerSnapshot.capture(player);
+                snapshotTick = tick;
+            }
+            return snapshot;
+        }
+
+        /**
+         * Gets a snapshot which looks the player's state up as it's read, for testing conditions on the server thread
+         * @return The snapshot
+         */
+        PlayerSnapshot getLiveSnapshot() {
+            if (live == null) live = PlayerSnapshot.live(player);
+            return live;
         }
 
-        // TODO: Consider if we should resort buckets
+        /**
+         * Records that the group was run for this player
+         * @param group The group
+         * @param tick  The current tick
+         * @return The number of ticks since the group was last run for this player
+         */
+        int markRun(final CadenceGroup group, final long tick) {
+            ensureCapacity(group.id);
+            final long last = lastRun[group.id];
+            lastRun[group.id] = tick;
+            carried[group.id] = false;
+
+            return last == 0 ? group.interval : (int) Math.min(tick - last, Integer.MAX_VALUE);
+        }
+
+        boolean isCarried(final int id) {
+            return id < carried.length && carried[id];
+        }
+
+        void setCarried(final int id) {
+            ensureCapacity(id);
+            carried[id] = true;
+        }
+
+        void reset(final int id) {
+            if (lastRun.length <= id) return;
+            lastRun[id] = 0;
+            carried[id] = false;
+        }
+
+        private void ensureCapacity(final int id) {
+            if (id < lastRun.length) return;
+            lastRun = Arrays.copyOf(lastRun, id + 1);
+            carried = Arrays.copyOf(carried, id + 1);
+        }
+    }
+
+    /**
+     * A player's update for a group which didn't fit into the tick it was due on
+     */
+    private static class CarriedUpdate {
+        private final CadenceGroup group;
+        private final TrackedPlayer player;
+
+        CarriedUpdate(final CadenceGroup group, final TrackedPlayer player) {
+            this.group = group;
+            this.player = player;
+        }
+    }
+
+    /**
+     * All of the actions which share an interval and offset, flattened into an array for dispatch
+     */
+    private static class CadenceGroup {
+        private final int id;
+        private final int interval;
+        private final int offset;
+        private final List<Handle> handles = new ArrayList<>();
+
+        private ObjIntConsumer<PlayerEntity>[] actions = NO_ACTIONS;
+        private Predicate<PlayerSnapshot>[] conditions = NO_CONDITIONS;
+        private ObjIntConsumer<PlayerEntity>[] conditionalActions = NO_ACTIONS;
+        private BatchAction[] batchActions = NO_BATCH_ACTIONS;
+        private long nextTick;
+        private boolean dirty;
+        private boolean cancelled;
+
+        // The players collected for the batch actions so far
+        private PlayerEntity[] batchPlayers = new PlayerEntity[0];
+        private TrackedPlayer[] batchTracked = new TrackedPlayer[0];
+        private int[] batchElapsed = new int[0];
+        private int batchCount;
+
+        CadenceGroup(final int id, final int interval, final int offset) {
+            this.id = id;
+            this.interval = interval;
+            this.offset = offset;
+        }
+
+        @SuppressWarnings("unchecked")
+        void rebuild() {
+            final List<ObjIntConsumer<PlayerEntity>> plain = new ArrayList<>();
+            final List<Predicate<PlayerSnapshot>> tests = new ArrayList<>();
+            final List<ObjIntConsumer<PlayerEntity>> conditional = new ArrayList<>();
+            final List<BatchAction> batched = new ArrayList<>();
+
+            for (final Handle handle : handles) {
+                if (handle.batchAction != null) {
+                    batched.add(handle.batchAction);
+                } else if (handle.condition == null) {
+                    plain.add(handle.action);
+                } else {
+                    tests.add(handle.condition);
+                    conditional.add(handle.action);
+                }
+            }
+
+            actions = plain.toArray(new ObjIntConsumer[0]);
+            conditions = tests.toArray(new Predicate[0]);
+            conditionalActions = conditional.toArray(new ObjIntConsumer[0]);
+            batchActions = batched.toArray(NO_BATCH_ACTIONS);
+            dirty = false;
+        }
+
+        void addToBatch(final TrackedPlayer tracked, final int elapsed) {
+            if (batchCount == batchPlayers.length) {
+                final int capacity = Math.max(batchCount * 2, 8);
+                batchPlayers = Arrays.copyOf(batchPlayers, capacity);
+                batchTracked = Arrays.copyOf(batchTracked, capacity);
+                batchElapsed = Arrays.copyOf(batchElapsed, capacity);
+            }
+
+            batchPlayers[batchCount] = tracked.player;
+            batchTracked[batchCount] = tracked;
+            batchElapsed[batchCount] = elapsed;
+            batchCount++;
+        }
+
+        void clearBatch() {
+            // Don't hold onto players who may have left
+            Arrays.fill(batchPlayers, 0, batchCount, null);
+            Arrays.fill(batchTracked, 0, batchCount, null);
+            batchCount = 0;
+        }
     }
 }
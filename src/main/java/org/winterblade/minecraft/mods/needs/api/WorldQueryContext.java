@@ -0,0 +1,235 @@
+package org.winterblade.minecraft.mods.needs.api;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.BlockRayTraceResult;
+import net.minecraft.util.math.RayTraceContext;
+import net.minecraft.util.math.RayTraceResult;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.world.LightType;
+import net.minecraft.world.World;
+import net.minecraft.world.biome.Biome;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Memoizes the world queries that manipulators and needs commonly make about a player's surroundings, so that each one
+ * is only looked up once no matter how many things ask for it. Results are kept until the tick changes, or the player
+ * moves or changes worlds. This should only be used from the server thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class WorldQueryContext {
+    private static final Map<PlayerEntity, WorldQueryContext> contexts = new MapMaker().weakKeys().makeMap();
+
+    private final PlayerEntity player;
+
+    private long tick;
+    private World world;
+    private double posX;
+    private double posY;
+    private double posZ;
+    private float yaw;
+    private float pitch;
+
+    private BlockPos pos;
+    private BlockPos feetPos;
+    private BlockState feetState;
+    private Biome biome;
+    private double temperature;
+    private boolean hasTemperature;
+    private int light;
+    private int skyLight;
+
+    private int lookCount;
+    private int[] lookDistances = new int[1];
+    private BlockState[] lookTargets = new BlockState[1];
+
+    private WorldQueryContext(final PlayerEntity player) {
+        this.player = player;
+        reset();
+    }
+
+    /**
+     * Gets the context for the player, clearing out anything that might be stale
+     * @param player The player
+     * @return The context
+     */
+    public static WorldQueryContext get(final PlayerEntity player) {
+        WorldQueryContext context = contexts.get(player);
+        if (context == null) {
+            context = new WorldQueryContext(player);
+            contexts.put(player, context);
+            return context;
+        }
+
+        if (context.isStale()) context.reset();
+        return context;
+    }
+
+    /**
+     * @return The world the player is in
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return The ID of the dimension the player is in
+     */
+    public int getDimension() {
+        return world.getDimension().getType().getId();
+    }
+
+    /**
+     * @return The block position the player is in
+     */
+    public BlockPos getPos() {
+        if (pos == null) pos = new BlockPos(player);
+        return pos;
+    }
+
+    /**
+     * @return The block position the player is standing on
+     */
+    public BlockPos getFeetPos() {
+        if (feetPos == null) feetPos = getPos().down();
+        return feetPos;
+    }
+
+    /**
+     * @return The block state the player is standing on
+     */
+    public BlockState getFeetState() {
+        if (feetState == null) feetState = world.getBlockState(getFeetPos());
+        return feetState;
+    }
+
+    /**
+     * @return The biome the player is in
+     */
+    public Biome getBiome() {
+        if (biome == null) biome = world.getBiome(getPos());
+        return biome;
+    }
+
+    /**
+     * @return The biome temperature where the player is
+     */
+    public double getTemperature() {
+        if (!hasTemperature) {
+            temperature = getBiome().getTemperature(getPos());
+            hasTemperature = true;
+        }
+        return temperature;
+    }
+
+    /**
+     * @return The combined light level where the player is
+     */
+    public int getLight() {
+        if (light < 0) light = world.getLight(getPos());
+        return light;
+    }
+
+    /**
+     * @return The sky light level where the player is
+     */
+    public int getSkyLight() {
+        if (skyLight < 0) skyLight = world.getLightFor(LightType.SKY, getPos());
+        return skyLight;
+    }
+
+    /**
+     * Gets the block the player is looking at, out to the given distance
+     * @param distance The ray-traced distance to check
+     * @return The block state, or null if there isn't a block in range
+     */
+    @Nullable
+    public BlockState getLookTarget(final int distance) {
+        for (int i = 0; i < lookCount; i++) {
+            if (lookDistances[i] == distance) return lookTargets[i];
+        }
+
+        final BlockState target = traceLook(distance);
+        if (lookCount == lookDistances.length) {
+            lookDistances = Arrays.copyOf(lookDistances, lookCount * 2);
+            lookTargets = Arrays.copyOf(lookTargets, lookCount * 2);
+        }
+
+        lookDistances[lookCount] = distance;
+        lookTargets[lookCount] = target;
+        lookCount++;
+        return target;
+    }
+
+    /**
+     * Ray-traces out from the player's eyes
+     * @param distance The distance to trace
+     * @return The block state hit, or null if nothing was
+     */
+    @Nullable
+    private BlockState traceLook(final int distance) {
+        // Get start and end points:
+        final Vec3d startingPosition = new Vec3d(player.posX, player.posY + player.getEyeHeight(), player.posZ);
+        final Vec3d endingPosition = startingPosition.add(player.getLookVec().scale(distance));
+
+        final RayTraceContext ctx = new RayTraceContext(
+                startingPosition,
+                endingPosition,
+                RayTraceContext.BlockMode.OUTLINE, // Going to assume outline is faster than collision
+                RayTraceContext.FluidMode.NONE, // We're going to ignore fluids for now...
+                player
+        );
+
+        // We'd probably have to trace ourselves to detect if the player is looking at an entity on the server side
+        // See ProjectileHelper before going that route.
+
+        final BlockRayTraceResult result = world.rayTraceBlocks(ctx);
+        //noinspection ConstantConditions - no, you probably aren't.
+        if (result == null || result.getType() == RayTraceResult.Type.MISS) return null;
+
+        return world.getBlockState(result.getPos());
+    }
+
+    /**
+     * Checks if anything the results depend on has changed
+     * @return True if the context needs to be reset
+     */
+    private boolean isStale() {
+        return tick != TickManager.INSTANCE.getCurrentTick()
+                || world != player.world
+                || posX != player.posX
+                || posY != player.posY
+                || posZ != player.posZ
+                || yaw != player.rotationYaw
+                || pitch != player.rotationPitch;
+    }
+
+    /**
+     * Forgets everything and takes note of where the player is now
+     */
+    private void reset() {
+        tick = TickManager.INSTANCE.getCurrentTick();
+        world = player.world;
+        posX = player.posX;
+        posY = player.posY;
+        posZ = player.posZ;
+        yaw = player.rotationYaw;
+        pitch = player.rotationPitch;
+
+        pos = null;
+        feetPos = null;
+        feetState = null;
+        biome = null;
+        hasTemperature = false;
+        light = -1;
+        skyLight = -1;
+
+        lookCount = 0;
+        Arrays.fill(lookTargets, null);
+    }
+}
@@ -16,9 +16,21 @@ public class CountedExpressionContext extends NeedExpressionContext {
         docs.put(COUNT, "The count of the value being tested.");
     }
 
+    private int countSlot = -1;
+
     public CountedExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        countSlot = getSlot(COUNT);
+    }
+
+    public void setCount(final double count) {
+        set(countSlot, count);
+    }
+
     @Override
     public List<String> getElements() {
         elements.add("count");
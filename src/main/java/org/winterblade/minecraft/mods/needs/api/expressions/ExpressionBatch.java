@@ -0,0 +1,63 @@
+package org.winterblade.minecraft.mods.needs.api.expressions;
+
+import java.util.Arrays;
+
+/**
+ * Holds the arguments and results for evaluating an expression for many players at once; each argument is a column,
+ * with one row per player. Compiled expressions run each instruction down the whole column at a time rather than
+ * running the whole expression once per player. Batches are reusable, but shouldn't be shared between threads; get
+ * one from {@link ExpressionContext#newBatch(int)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExpressionBatch {
+    final double[][] columns;
+    final double[][] stack;
+    double[] results;
+
+    // Working space for expressions that have to be evaluated a row at a time; allocated on first use
+    ExpressionFrame rowFrame;
+
+    ExpressionBatch(final int size, final int stackSize, final int capacity) {
+        columns = new double[size][Math.max(capacity, 1)];
+        stack = new double[stackSize][Math.max(capacity, 1)];
+        results = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Makes sure the batch can hold at least the given number of rows
+     * @param count The number of rows
+     */
+    public void ensureCapacity(final int count) {
+        if (count <= results.length) return;
+
+        final int capacity = Math.max(count, results.length * 2);
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], capacity);
+        }
+        for (int i = 0; i < stack.length; i++) {
+            stack[i] = new double[capacity];
+        }
+        results = new double[capacity];
+    }
+
+    /**
+     * Sets the argument in the given slot for a single row
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}; negative slots are ignored
+     * @param row   The row
+     * @param value The value
+     * @return The batch for chaining
+     */
+    public ExpressionBatch set(final int slot, final int row, final double value) {
+        if (0 <= slot) columns[slot][row] = value;
+        return this;
+    }
+
+    /**
+     * Gets the result for the row from the last evaluation
+     * @param row The row
+     * @return The result
+     */
+    public double getResult(final int row) {
+        return results[row];
+    }
+}
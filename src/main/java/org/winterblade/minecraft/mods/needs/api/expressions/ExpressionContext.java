@@ -9,15 +9,16 @@ import org.mariuszgromada.math.mxparser.Argument;
 import org.mariuszgromada.math.mxparser.Expression;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
 import org.winterblade.minecraft.mods.needs.api.documentation.IDocumentedContext;
+import org.winterblade.minecraft.mods.needs.api.expressions.compiler.CompiledExpression;
+import org.winterblade.minecraft.mods.needs.api.expressions.compiler.ExpressionCompiler;
 import org.winterblade.minecraft.mods.needs.api.needs.LazyNeed;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 
 import java.lang.reflect.Type;
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @JsonAdapter(ExpressionContext.Deserializer.class)
@@ -26,15 +27,24 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
     // Ensure default constructor?
     protected ExpressionContext() {}
 
-    IExpression expression;
+    private BuiltExpression expression;
 
     // Storage for building
     private List<Argument> arguments;
-    private Supplier<IExpression> builderFn;
-    private Function<PlayerEntity, Double> applyFn = (p) -> {
-        build();
-        return expression.apply(p);
-    };
+    private Supplier<BuiltExpression> builderFn;
+    private int cacheSize;
+
+    // For profiling; what the expression was written as, and where
+    private String source;
+    private String owner;
+
+    // Built expressions keep no state of their own, so identical ones can be shared
+    private static final Map<String, BuiltExpression> built = new ConcurrentHashMap<>();
+
+    // Arguments are kept per thread; the thread that built the expression gets its frame without a thread local lookup
+    private final ThreadLocal<ExpressionFrame> frames = ThreadLocal.withInitial(this::newFrame);
+    private Thread ownerThread;
+    private ExpressionFrame ownerFrame;
 
     /**
      * Generates an expression context that always returns the given value
@@ -45,6 +55,7 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
      */
     public static <T extends ExpressionContext> T makeConstant(final T ctx, final double amount) {
         ctx.expression = new ConstantAdjustmentWrappedExpression(amount);
+        ctx.source = Double.toString(amount);
         return ctx;
     }
 
@@ -54,8 +65,113 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
      * @return The result
      */
     @Override
-    public Double apply(final PlayerEntity player) {
-        return applyFn.apply(player);
+    public double applyAsDouble(final PlayerEntity player) {
+        return applyAsDouble(player, getFrame());
+    }
+
+    /**
+     * Calculates the function against the given frame and returns the result
+     * @param player The player to calculate on
+     * @param frame  The frame holding the arguments
+     * @return The result
+     */
+    @Override
+    public double applyAsDouble(final PlayerEntity player, final ExpressionFrame frame) {
+        if (expression == null) build();
+
+        try {
+            if (!ExpressionProfiler.isRunning()) return expression.evaluate(player, frame);
+
+            final ExpressionProfiler.Profile profile = ExpressionProfiler.getProfile(this);
+            final long bytes = ExpressionProfiler.getAllocatedBytes();
+            final long start = System.nanoTime();
+
+            final double result = expression.evaluate(player, frame);
+
+            final long nanos = System.nanoTime() - start;
+            profile.record(1, nanos, ExpressionProfiler.getAllocatedBytes() - bytes);
+            return result;
+        } finally {
+            // Lazy arguments that weren't read shouldn't carry over to the next call
+            frame.clearLazy();
+        }
+    }
+
+    /**
+     * Creates a new, empty frame for this expression
+     * @return The frame
+     */
+    @Override
+    public ExpressionFrame newFrame() {
+        if (expression == null) build();
+        return new ExpressionFrame(arguments != null ? arguments.size() : 0, expression.getStackSize());
+    }
+
+    /**
+     * Creates a new batch for evaluating this expression for many players at once
+     * @param capacity The number of players to make room for; the batch can be grown later
+     * @return The batch
+     */
+    public ExpressionBatch newBatch(final int capacity) {
+        if (expression == null) build();
+        return new ExpressionBatch(arguments != null ? arguments.size() : 0, expression.getStackSize(), capacity);
+    }
+
+    /**
+     * Evaluates the expression for each of the players, using the arguments in the batch's columns; results can then
+     * be read back from the batch
+     * @param players The players, one per row
+     * @param batch   The batch, from {@link ExpressionContext#newBatch(int)}
+     * @param count   The number of players
+     */
+    public void applyBatch(final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+        if (expression == null) build();
+        batch.ensureCapacity(count);
+        if (!ExpressionProfiler.isRunning()) {
+            expression.evaluateBatch(players, batch, count);
+            return;
+        }
+
+        final ExpressionProfiler.Profile profile = ExpressionProfiler.getProfile(this);
+        final long bytes = ExpressionProfiler.getAllocatedBytes();
+        final long start = System.nanoTime();
+
+        expression.evaluateBatch(players, batch, count);
+
+        final long nanos = System.nanoTime() - start;
+        profile.record(count, nanos, ExpressionProfiler.getAllocatedBytes() - bytes);
+    }
+
+    /**
+     * Gets the frame that {@link ExpressionContext#set(int, double)} and {@link ExpressionContext#applyAsDouble(PlayerEntity)}
+     * use on the calling thread
+     * @return The frame
+     */
+    public ExpressionFrame getFrame() {
+        if (expression == null) build();
+        return Thread.currentThread() == ownerThread ? ownerFrame : frames.get();
+    }
+
+    /**
+     * Sets what the expression belongs to, for profiling
+     * @param owner A description of the owner, such as the need and manipulator
+     */
+    public void setOwner(final String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return What the expression belongs to, or 'Unknown' if that hasn't been set
+     */
+    public String getOwner() {
+        return owner != null ? owner : "Unknown";
+    }
+
+    /**
+     * @return The expression as it was written
+     */
+    public String getSource() {
+        return source;
     }
 
     /**
@@ -77,7 +193,61 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
      * @return True if so, false otherwise
      */
     public boolean isRequired(final String arg) {
-        return expression.isRequired(arg);
+        return isRequired(getSlot(arg));
+    }
+
+    /**
+     * Gets the slot for the named argument, to use with {@link ExpressionContext#set(int, double)}; slots never change
+     * once the expression is deserialized, so this can be done once ahead of time.
+     * @param arg The argument
+     * @return The slot, or -1 if the expression doesn't have that argument
+     */
+    public int getSlot(final String arg) {
+        if (arguments == null) return -1;
+
+        for (int i = 0; i < arguments.size(); i++) {
+            if (arguments.get(i).getArgumentName().equals(arg)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if the argument in the slot is required
+     * @param slot The slot, from {@link ExpressionContext#getSlot(String)}
+     * @return True if so, false otherwise
+     */
+    @Override
+    public boolean isRequired(final int slot) {
+        if (slot < 0) return false;
+        if (expression == null) build();
+        return expression.isRequired(slot);
+    }
+
+    /**
+     * Sets the argument in the slot in the calling thread's frame
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}
+     * @param value The value
+     * @return The expression for chaining
+     */
+    @Override
+    public ExpressionContext set(final int slot, final double value) {
+        if (slot < 0) return this;
+
+        getFrame().set(slot, value);
+        return this;
+    }
+
+    /**
+     * Sets the argument in the slot in the calling thread's frame to be calculated only if the next evaluation
+     * actually reads it (for instance, if it's only used on one side of an if()); the supplier isn't called until
+     * then, so the expression should be evaluated before anything the supplier depends on changes
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}
+     * @param value The supplier for the value
+     * @return The expression for chaining
+     */
+    public ExpressionContext setLazy(final int slot, final DoubleSupplier value) {
+        if (isRequired(slot)) getFrame().setLazy(slot, value);
+        return this;
     }
 
     /**
@@ -88,7 +258,8 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
      */
     @Override
     public IExpression setIfRequired(final String arg, final Supplier<Double> value) {
-        expression.setIfRequired(arg, value);
+        final int slot = getSlot(arg);
+        if (isRequired(slot)) getFrame().set(slot, value.get());
         return this;
     }
 
@@ -111,10 +282,23 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
 
         if (expression == null) throw new IllegalArgumentException("Unable to build expression.");
 
-        applyFn = expression;
+        if (ownerFrame == null) {
+            ownerFrame = newFrame();
+            ownerThread = Thread.currentThread();
+        }
+
         getNeeds().forEach((n) -> n.get(Need::enableSyncing, () -> {})); // Make sure we sync any needs first
     }
 
+    /**
+     * Forgets every cached template and built expression; called when the server stops, as built expressions hold
+     * onto the needs they refer to
+     */
+    public static void clearCache() {
+        built.clear();
+        ExpressionTemplate.clearCache();
+    }
+
     /**
      * Check if the expression is constant (has any variables) or not
      * @return True if it is, false otherwise
@@ -123,6 +307,11 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
         return expression instanceof ConstantAdjustmentWrappedExpression;
     }
 
+    /**
+     * Called once the arguments are known, so that subclasses can look up the slots for their elements ahead of time
+     */
+    protected void resolveSlots() {}
+
     /**
      * Returns a list of element names this object supports by default
      * @return The list of elements
@@ -134,13 +323,29 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
      * @param json The JSON to parse
      */
     private void deserializeExpression(final JsonElement json) {
-        if (!json.isJsonPrimitive()) throw new JsonParseException("Expression must be a string or an integer");
+        if (json.isJsonObject()) {
+            final JsonObject obj = json.getAsJsonObject();
+            if (!obj.has("expression")) throw new JsonParseException("Expression objects must have an 'expression'");
+
+            if (obj.has("cacheSize")) {
+                cacheSize = obj.getAsJsonPrimitive("cacheSize").getAsInt();
+                if (cacheSize < 0 || ExpressionResultCache.MAX_SIZE < cacheSize) {
+                    throw new JsonParseException("Expression cacheSize must be between 0 and " + ExpressionResultCache.MAX_SIZE);
+                }
+            }
+
+            deserializeExpression(obj.get("expression"));
+            return;
+        }
+
+        if (!json.isJsonPrimitive()) throw new JsonParseException("Expression must be a string, an integer, or an object with an expression");
 
         final JsonPrimitive primitive = json.getAsJsonPrimitive();
 
+        // Going to a primitive then a string avoids string builder'ing it all
+        source = primitive.getAsString().trim();
         if(primitive.isNumber()) {
             this.expression = new ConstantAdjustmentWrappedExpression(primitive.getAsDouble());
-            this.applyFn = this.expression;
             return;
         }
 
@@ -149,90 +354,86 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
                 .map((a) -> new Argument(a, 0))
                 .collect(Collectors.toList());
 
-        // Going to a primitive then a string avoids string builder'ing it all
-        final Map<String, LazyNeed> needs = new HashMap<>();
-        final String finalExpr = parseExpressionForNeeds(json.getAsJsonPrimitive().getAsString().trim(), arguments, needs);
+        final ExpressionTemplate template = ExpressionTemplate.of(source);
+        final String finalExpr = template.expression;
+
+        // Add our fancy new elements in...
+        final Map<String, LazyNeed> needs = new LinkedHashMap<>();
+        template.needs.forEach((variable, name) -> {
+            needs.put(variable, new LazyNeed(name));
+            arguments.add(new Argument(variable, 0));
+        });
+        resolveSlots();
 
         // Instead of a constant, we'll allow the expression to be built lazily
         // so that consumers can add additional elements before parsing
         builderFn = () -> {
-            final Expression parsedExpr = new Expression(finalExpr, arguments.toArray(new Argument[0]));
-
-            if (!parsedExpr.checkSyntax()) {
-                throw new IllegalArgumentException(
-                    "Unable to parse expression '" + finalExpr + "', valid variables in this context are: "
-                    + String.join(", ",
-                        arguments
-                            .stream()
-                            .map(Argument::getArgumentName)
-                            .collect(Collectors.toList())
-                    ) + "\n" + parsedExpr.getErrorMessage()
-                );
-            }
-
-            if (arguments.size() <= 0) {
-                return new ConstantAdjustmentWrappedExpression(parsedExpr.calculate());
-            }
-
-
-            final String expr = parsedExpr.getExpressionString();
-            final Map<String, Argument> elemMap = arguments
-                    .stream()
-                    .filter((a) -> expr.contains(a.getArgumentName()))
-                    .collect(
-                            Collectors
-                                    .toMap(Argument::getArgumentName, (a) -> a)
-                    );
-
-            return elemMap.isEmpty()
-                    ? new ConstantAdjustmentWrappedExpression(parsedExpr.calculate())
-                    : needs.isEmpty()
-                        ? new ParsedWrappedExpression(parsedExpr, elemMap)
-                        : new NeedWrappedExpression(parsedExpr, elemMap, needs);
+            // Expressions written the same way with the same arguments build to the same thing
+            final String key = finalExpr + '\0' + String.join(",", template.needs.values()) + '\0'
+                    + arguments.stream().map(Argument::getArgumentName).collect(Collectors.joining(",")) + '\0' + cacheSize;
+            return built.computeIfAbsent(key, (k) -> {
+                final BuiltExpression result = build(finalExpr, template, needs);
+                return 0 < cacheSize && !(result instanceof ConstantAdjustmentWrappedExpression) && !result.isAffine()
+                        ? new CachedWrappedExpression(result, arguments.size(), cacheSize)
+                        : result;
+            });
         };
     }
 
     /**
-     * Parses the expression string in order to pull out any needs that are in it, updating elements, and needs
-     * collections, and returning the updated expression
-     * @param exp       The expression to parse and return
-     * @param arguments The element list to add to
-     * @param needs     The the needs map to add to
-     * @return The updated expression string
+     * Parses, checks and compiles the expression
+     * @param finalExpr The expression, with needs already swapped out
+     * @param template  The template it came from
+     * @param needs     The needs it refers to
+     * @return The built expression
      */
-    private String parseExpressionForNeeds(String exp, final List<Argument> arguments, final Map<String, LazyNeed> needs) {
-        if (!exp.contains("need(")) return exp;
-
-        final Set<String> matched = new HashSet<>();
-        final Matcher match = Pattern.compile("need\\(([a-zA-Z0-9 ]+)\\)").matcher(exp);
-        char current = 'A';
-        final StringBuilder prefix = new StringBuilder("need");
-
-        while (match.find()) {
-            final String name = match.group(1).toLowerCase();
-            if (!matched.add(name)) continue; // We've already handled it
-
-            // Do the swap
-            final String rep = prefix.toString() + current;
-            needs.put(rep, new LazyNeed(name));
-            exp = exp.replaceAll("need\\(" + match.group(1) + "\\)", rep); // TODO: Fix edge case based on two separate capitalizations...
-
-            // Increment our stuff
-            current++;
-            if ('Z' < current) {
-                current = 'A';
-                prefix.append('A'); // I mean, yeah, this makes it 'needAAAAAA' but, pls. needAZ is already 52 needs.
-            }
+    private BuiltExpression build(final String finalExpr, final ExpressionTemplate template, final Map<String, LazyNeed> needs) {
+        final Expression parsedExpr = new Expression(finalExpr, arguments.toArray(new Argument[0]));
+
+        if (!parsedExpr.checkSyntax()) {
+            throw new IllegalArgumentException(
+                "Unable to parse expression '" + finalExpr + "', valid variables in this context are: "
+                + String.join(", ",
+                    arguments
+                        .stream()
+                        .map(Argument::getArgumentName)
+                        .collect(Collectors.toList())
+                ) + "\n" + parsedExpr.getErrorMessage()
+            );
         }
 
-        // Add our fancy new elements in...
-        needs
-            .entrySet()
-            .stream()
-            .map((kv) -> new Argument(kv.getKey(), 0))
-            .forEach(arguments::add);
+        if (arguments.size() <= 0) {
+            return new ConstantAdjustmentWrappedExpression(parsedExpr.calculate());
+        }
+
+        final Map<String, Argument> elemMap = arguments
+                .stream()
+                .filter((a) -> template.identifiers.contains(a.getArgumentName()) || needs.containsKey(a.getArgumentName()))
+                .collect(
+                        Collectors
+                                .toMap(Argument::getArgumentName, (a) -> a)
+                );
+
+        if (elemMap.isEmpty()) return new ConstantAdjustmentWrappedExpression(parsedExpr.calculate());
+
+        // Prefer the compiled form; mXparser is still there for anything the compiler doesn't handle
+        final CompiledExpression compiled = ExpressionCompiler.compile(parsedExpr, arguments);
+        if (compiled != null) {
+            // Everything that depended on an argument may have been folded away
+            if (compiled.isConstant()) {
+                return new ConstantAdjustmentWrappedExpression(
+                    compiled.evaluate(new double[arguments.size()], new double[compiled.getStackSize()])
+                );
+            }
+
+            return needs.isEmpty()
+                    ? new CompiledWrappedExpression(compiled)
+                    : new CompiledNeedWrappedExpression(compiled, needs, arguments);
+        }
 
-        return exp;
+        return needs.isEmpty()
+                ? new ParsedWrappedExpression(parsedExpr, elemMap, arguments)
+                : new NeedWrappedExpression(parsedExpr, elemMap, arguments, needs);
     }
 
     public static class Deserializer implements JsonDeserializer<ExpressionContext> {
@@ -254,7 +455,56 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
         }
     }
 
-    private static class ConstantAdjustmentWrappedExpression implements IExpression {
+    /**
+     * The built form of an expression; it reads its arguments from the frame it's given and keeps no state of its own
+     * between calls, apart from where noted
+     */
+    private interface BuiltExpression {
+        double evaluate(PlayerEntity player, ExpressionFrame frame);
+
+        /**
+         * Evaluates a batch; by default, this just evaluates each row on its own
+         */
+        default void evaluateBatch(final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+            if (batch.rowFrame == null) batch.rowFrame = new ExpressionFrame(batch.columns.length, getStackSize());
+
+            final ExpressionFrame frame = batch.rowFrame;
+            for (int i = 0; i < count; i++) {
+                for (int a = 0; a < batch.columns.length; a++) {
+                    frame.values[a] = batch.columns[a][i];
+                }
+                batch.results[i] = evaluate(players[i], frame);
+            }
+        }
+
+        /**
+         * Writes any needs the expression reads into the frame
+         */
+        default void bindNeeds(final PlayerEntity player, final ExpressionFrame frame) {}
+
+        /**
+         * Evaluates the expression, assuming {@link BuiltExpression#bindNeeds(PlayerEntity, ExpressionFrame)} has
+         * already been called on the frame
+         */
+        default double evaluateBound(final PlayerEntity player, final ExpressionFrame frame) {
+            return evaluate(player, frame);
+        }
+
+        /**
+         * Checks if the expression is cheap enough that caching its results wouldn't gain anything
+         */
+        default boolean isAffine() {
+            return false;
+        }
+
+        boolean isRequired(int slot);
+
+        int getStackSize();
+
+        List<LazyNeed> getNeeds();
+    }
+
+    private static class ConstantAdjustmentWrappedExpression implements BuiltExpression {
         final double adjust;
 
         ConstantAdjustmentWrappedExpression(final double adjust) {
@@ -262,53 +512,71 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
         }
 
         @Override
-        public Double apply(final PlayerEntity player) {
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
             return adjust;
         }
 
         @Override
-        public IExpression setIfRequired(final String arg, final Supplier<Double> value) {
-            // No-op
-            return this;
+        public void evaluateBatch(final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+            Arrays.fill(batch.results, 0, count, adjust);
         }
 
         @Override
-        public boolean isRequired(final String arg) {
+        public boolean isRequired(final int slot) {
             return false;
         }
 
+        @Override
+        public int getStackSize() {
+            return 0;
+        }
+
         @Override
         public List<LazyNeed> getNeeds() {
             return Collections.emptyList();
         }
     }
 
-    private static class ParsedWrappedExpression implements IExpression {
+    /**
+     * Falls back to mXparser, which keeps its arguments on the expression; the frame is copied into them and the
+     * expression calculated while holding its lock, so that concurrent callers don't trample each other
+     */
+    private static class ParsedWrappedExpression implements BuiltExpression {
         final Expression expression;
-        final Map<String, Argument> elements;
+        final Argument[] slots;
 
-        ParsedWrappedExpression(final Expression expression, final Map<String, Argument> elements) {
+        ParsedWrappedExpression(final Expression expression, final Map<String, Argument> elements, final List<Argument> arguments) {
             this.expression = expression;
-            this.elements = elements;
+
+            // Only keep the arguments that are actually used, so copying the others can be skipped
+            slots = new Argument[arguments.size()];
+            for (int i = 0; i < slots.length; i++) {
+                slots[i] = elements.get(arguments.get(i).getArgumentName());
+            }
         }
 
         @Override
-        public Double apply(final PlayerEntity player) {
-            return expression.calculate();
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
+            // mXparser has no way to ask for arguments as it reads them
+            frame.resolve();
+
+            synchronized (expression) {
+                for (int i = 0; i < slots.length; i++) {
+                    if (slots[i] != null) slots[i].setArgumentValue(frame.values[i]);
+                }
+
+                return expression.calculate();
+            }
         }
 
         @Override
-        public IExpression setIfRequired(final String argName, final Supplier<Double> value) {
-            final Argument arg = elements.get(argName);
-            if(arg == null) return this;
-
-            arg.setArgumentValue(value.get());
-            return this;
+        public boolean isRequired(final int slot) {
+            return slots[slot] != null;
         }
 
         @Override
-        public boolean isRequired(final String arg) {
-            return elements.containsKey(arg);
+        public int getStackSize() {
+            return 0;
         }
 
         @Override
@@ -318,25 +586,230 @@ public abstract class ExpressionContext implements IExpression, IDocumentedConte
     }
 
     private static class NeedWrappedExpression extends ParsedWrappedExpression {
-        private final Map<String, LazyNeed> needs;
+        private final NeedBindings needs;
+
+        NeedWrappedExpression(final Expression expression, final Map<String, Argument> elements,
+                              final List<Argument> arguments, final Map<String, LazyNeed> needs) {
+            super(expression, elements, arguments);
+            this.needs = new NeedBindings(this, arguments, needs);
+        }
+
+        @Override
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
+            needs.bind(frame, player);
+            return super.evaluate(player, frame);
+        }
+
+        @Override
+        public void bindNeeds(final PlayerEntity player, final ExpressionFrame frame) {
+            needs.bind(frame, player);
+        }
 
-        NeedWrappedExpression(final Expression expression, final Map<String, Argument> elements, final Map<String, LazyNeed> needs) {
-            super(expression, elements);
-            this.needs = needs;
+        @Override
+        public double evaluateBound(final PlayerEntity player, final ExpressionFrame frame) {
+            return super.evaluate(player, frame);
         }
 
         @Override
-        public Double apply(final PlayerEntity player) {
-            for (final Map.Entry<String, LazyNeed> kv : needs.entrySet()) {
-                setIfRequired(kv.getKey(), () -> kv.getValue().getValueFor(player));
+        public List<LazyNeed> getNeeds() {
+            return needs.getNeeds();
+        }
+    }
+
+    private static class CompiledWrappedExpression implements BuiltExpression {
+        final CompiledExpression expression;
+
+        CompiledWrappedExpression(final CompiledExpression expression) {
+            this.expression = expression;
+        }
+
+        @Override
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
+            return expression.evaluate(frame.values, frame.stack, frame.getPending());
+        }
+
+        @Override
+        public void evaluateBatch(final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+            if (!expression.hasBranches()) {
+                expression.evaluate(batch.columns, batch.stack, batch.results, count);
+                return;
             }
 
-            return super.apply(player);
+            // Expressions with if() are run a row at a time instead, through the batch's own frame
+            if (batch.rowFrame == null) batch.rowFrame = new ExpressionFrame(batch.columns.length, getStackSize());
+
+            final ExpressionFrame frame = batch.rowFrame;
+            for (int i = 0; i < count; i++) {
+                for (int a = 0; a < batch.columns.length; a++) {
+                    frame.values[a] = batch.columns[a][i];
+                }
+                batch.results[i] = expression.evaluate(frame.values, frame.stack);
+            }
+        }
+
+        @Override
+        public boolean isAffine() {
+            return expression.isAffine();
+        }
+
+        @Override
+        public boolean isRequired(final int slot) {
+            return expression.isUsed(slot);
+        }
+
+        @Override
+        public int getStackSize() {
+            return expression.getStackSize();
         }
 
         @Override
         public List<LazyNeed> getNeeds() {
-            return ImmutableList.copyOf(needs.values());
+            return Collections.emptyList();
+        }
+    }
+
+    private static class CompiledNeedWrappedExpression extends CompiledWrappedExpression {
+        private final NeedBindings needs;
+
+        CompiledNeedWrappedExpression(final CompiledExpression expression, final Map<String, LazyNeed> needs,
+                                      final List<Argument> arguments) {
+            super(expression);
+            this.needs = new NeedBindings(this, arguments, needs);
+        }
+
+        @Override
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
+            needs.bind(frame, player);
+            return super.evaluate(player, frame);
+        }
+
+        @Override
+        public void bindNeeds(final PlayerEntity player, final ExpressionFrame frame) {
+            needs.bind(frame, player);
+        }
+
+        @Override
+        public double evaluateBound(final PlayerEntity player, final ExpressionFrame frame) {
+            return super.evaluate(player, frame);
+        }
+
+        @Override
+        public void evaluateBatch(final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+            needs.bind(batch, players, count);
+            super.evaluateBatch(players, batch, count);
+        }
+
+        @Override
+        public List<LazyNeed> getNeeds() {
+            return needs.getNeeds();
+        }
+    }
+
+    /**
+     * Remembers the results of another expression by the arguments it was called with, so that repeat calls with the
+     * same inputs (which is most of them, as needs tend to sit at the same value) skip calculating it again. The lock
+     * is only held while looking up or storing a result, not while calculating it.
+     */
+    private static class CachedWrappedExpression implements BuiltExpression {
+        private final BuiltExpression expression;
+        private final ExpressionResultCache cache;
+
+        CachedWrappedExpression(final BuiltExpression expression, final int argumentCount, final int size) {
+            this.expression = expression;
+
+            final List<Integer> slots = new ArrayList<>();
+            for (int i = 0; i < argumentCount; i++) {
+                if (expression.isRequired(i)) slots.add(i);
+            }
+            cache = new ExpressionResultCache(slots.stream().mapToInt(Integer::intValue).toArray(), size);
+        }
+
+        @Override
+        public double evaluate(final PlayerEntity player, final ExpressionFrame frame) {
+            expression.bindNeeds(player, frame);
+            frame.resolve(); // Every argument is part of the key
+
+            synchronized (cache) {
+                final int entry = cache.find(frame.values);
+                if (0 <= entry) return cache.getResult(entry);
+            }
+
+            final double result = expression.evaluateBound(player, frame);
+            synchronized (cache) {
+                cache.put(frame.values, result);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isRequired(final int slot) {
+            return expression.isRequired(slot);
+        }
+
+        @Override
+        public int getStackSize() {
+            return expression.getStackSize();
+        }
+
+        @Override
+        public List<LazyNeed> getNeeds() {
+            return expression.getNeeds();
+        }
+    }
+
+    /**
+     * The needs an expression refers to, resolved to the slots they're written into
+     */
+    private static class NeedBindings {
+        private final List<LazyNeed> all;
+        private final int[] slots;
+        private final LazyNeed[] needs;
+
+        NeedBindings(final BuiltExpression expression, final List<Argument> arguments, final Map<String, LazyNeed> needs) {
+            all = ImmutableList.copyOf(needs.values());
+
+            final List<Integer> slotList = new ArrayList<>();
+            final List<LazyNeed> needList = new ArrayList<>();
+            for (int i = 0; i < arguments.size(); i++) {
+                final LazyNeed need = needs.get(arguments.get(i).getArgumentName());
+                if (need == null || !expression.isRequired(i)) continue;
+
+                slotList.add(i);
+                needList.add(need);
+            }
+
+            slots = slotList.stream().mapToInt(Integer::intValue).toArray();
+            this.needs = needList.toArray(new LazyNeed[0]);
+        }
+
+        /**
+         * Writes the current value of each need into its slot
+         * @param frame  The frame to write to
+         * @param player The player to get the values for
+         */
+        void bind(final ExpressionFrame frame, final PlayerEntity player) {
+            for (int i = 0; i < slots.length; i++) {
+                frame.values[slots[i]] = needs[i].getValueFor(player);
+            }
+        }
+
+        /**
+         * Writes the current value of each need into its column for every player in the batch
+         * @param batch   The batch to write to
+         * @param players The players, one per row
+         * @param count   The number of players
+         */
+        void bind(final ExpressionBatch batch, final PlayerEntity[] players, final int count) {
+            for (int n = 0; n < slots.length; n++) {
+                final double[] column = batch.columns[slots[n]];
+                for (int i = 0; i < count; i++) {
+                    column[i] = needs[n].getValueFor(players[i]);
+                }
+            }
+        }
+
+        List<LazyNeed> getNeeds() {
+            return all;
         }
     }
 }
@@ -0,0 +1,88 @@
+package org.winterblade.minecraft.mods.needs.api.expressions;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds the argument values for a single evaluation of an expression, so that the expression itself never has to be
+ * written to and can be evaluated from more than one thread at once. Frames are cheap to reuse, but shouldn't be
+ * shared between threads; get one from {@link IExpression#newFrame()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExpressionFrame {
+    final double[] values;
+    final double[] stack;
+
+    // Arguments that are only worked out if the expression actually reads them; allocated on first use
+    DoubleSupplier[] lazy;
+    int pending;
+
+    ExpressionFrame(final int size, final int stackSize) {
+        values = new double[size];
+        stack = new double[stackSize];
+    }
+
+    /**
+     * Sets the argument in the given slot
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}; negative slots are ignored
+     * @param value The value
+     * @return The frame for chaining
+     */
+    public ExpressionFrame set(final int slot, final double value) {
+        if (slot < 0) return this;
+
+        values[slot] = value;
+        if (0 < pending && lazy[slot] != null) {
+            lazy[slot] = null;
+            pending--;
+        }
+        return this;
+    }
+
+    /**
+     * Sets the argument in the given slot to be calculated only if the expression reads it during its next
+     * evaluation; the supplier is called at most once, and forgotten after that evaluation either way
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}; negative slots are ignored
+     * @param value The supplier for the value
+     * @return The frame for chaining
+     */
+    public ExpressionFrame setLazy(final int slot, final DoubleSupplier value) {
+        if (slot < 0) return this;
+
+        if (lazy == null) lazy = new DoubleSupplier[values.length];
+        if (lazy[slot] == null) pending++;
+        lazy[slot] = value;
+        return this;
+    }
+
+    /**
+     * @return The lazy arguments, or null if there aren't any waiting to be read
+     */
+    DoubleSupplier[] getPending() {
+        return 0 < pending ? lazy : null;
+    }
+
+    /**
+     * Calculates every lazy argument that's still waiting, for expressions that can't read them on demand
+     */
+    void resolve() {
+        if (pending <= 0) return;
+
+        for (int i = 0; i < lazy.length; i++) {
+            if (lazy[i] == null) continue;
+            values[i] = lazy[i].getAsDouble();
+            lazy[i] = null;
+        }
+        pending = 0;
+    }
+
+    /**
+     * Forgets any lazy arguments that weren't read
+     */
+    void clearLazy() {
+        if (pending <= 0) return;
+
+        Arrays.fill(lazy, null);
+        pending = 0;
+    }
+}
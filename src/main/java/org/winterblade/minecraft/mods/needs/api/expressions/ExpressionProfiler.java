@@ -0,0 +1,221 @@
+package org.winterblade.minecraft.mods.needs.api.expressions;
+
+import com.google.common.collect.MapMaker;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.Expose;
+import org.winterblade.minecraft.mods.needs.NeedsMod;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Records how often each expression is evaluated, how long it takes and how much it allocates, so that expensive
+ * expressions can be traced back to the need and manipulator they came from. Profiling is off until started; while
+ * it's off, it costs a single volatile read per evaluation.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExpressionProfiler {
+    /**
+     * The number of timings kept per expression to estimate the 99th percentile from
+     */
+    private static final int RESERVOIR_SIZE = 1024;
+
+    private static final Map<ExpressionContext, Profile> profiles = new MapMaker().weakKeys().makeMap();
+    private static final com.sun.management.ThreadMXBean allocations = getAllocationBean();
+
+    private static volatile boolean running;
+    private static long startedAt;
+    private static long stoppedAt;
+
+    private ExpressionProfiler() {}
+
+    /**
+     * @return True if expressions are currently being profiled
+     */
+    public static boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts profiling, forgetting anything recorded before
+     */
+    public static void start() {
+        profiles.clear();
+        startedAt = System.nanoTime();
+        stoppedAt = 0;
+        running = true;
+    }
+
+    /**
+     * Stops profiling; what was recorded is kept until the next start
+     */
+    public static void stop() {
+        if (!running) return;
+        running = false;
+        stoppedAt = System.nanoTime();
+    }
+
+    /**
+     * @return True if the JVM is able to report allocations per thread
+     */
+    public static boolean isTrackingAllocations() {
+        return allocations != null;
+    }
+
+    /**
+     * Gets the results so far, most expensive (by total time) first
+     * @return The results
+     */
+    public static List<Result> getResults() {
+        return profiles
+                .entrySet()
+                .stream()
+                .map((e) -> e.getValue().getResult(e.getKey()))
+                .sorted(Comparator.comparingDouble((Result r) -> r.totalMs).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes the results so far to the given file as JSON
+     * @param file The file to write to
+     * @throws IOException If the file couldn't be written
+     */
+    public static void dump(final Path file) throws IOException {
+        final Dump dump = new Dump();
+        dump.durationMs = ((running ? System.nanoTime() : stoppedAt) - startedAt) / 1e6;
+        dump.allocationsTracked = isTrackingAllocations();
+        dump.expressions = getResults();
+
+        final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().setPrettyPrinting().create();
+        Files.createDirectories(file.getParent());
+        try (final Writer writer = Files.newBufferedWriter(file)) {
+            gson.toJson(dump, writer);
+        }
+    }
+
+    /**
+     * Gets the profile to record an expression's evaluations against
+     * @param context The expression
+     * @return The profile
+     */
+    static Profile getProfile(final ExpressionContext context) {
+        return profiles.computeIfAbsent(context, (c) -> new Profile());
+    }
+
+    /**
+     * @return The number of bytes the calling thread has allocated so far, or 0 if that isn't available
+     */
+    static long getAllocatedBytes() {
+        return allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationBean() {
+        try {
+            final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (!sunBean.isThreadAllocatedMemorySupported()) return null;
+            if (!sunBean.isThreadAllocatedMemoryEnabled()) sunBean.setThreadAllocatedMemoryEnabled(true);
+            return sunBean;
+        } catch (final LinkageError | RuntimeException e) {
+            NeedsMod.LOGGER.warn("Unable to track allocations when profiling expressions: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The running totals for a single expression
+     */
+    static final class Profile {
+        private long count;
+        private long calls;
+        private long totalNanos;
+        private long allocatedBytes;
+        private final long[] samples = new long[RESERVOIR_SIZE];
+        private int sampled;
+
+        /**
+         * Records a single call
+         * @param evaluations The number of evaluations the call made; more than one for batches
+         * @param nanos       The time taken
+         * @param bytes       The bytes allocated
+         */
+        synchronized void record(final int evaluations, final long nanos, final long bytes) {
+            count += evaluations;
+            totalNanos += nanos;
+            allocatedBytes += bytes;
+
+            // Reservoir sampling, so the percentile reflects the whole run rather than its start
+            final long perEvaluation = nanos / Math.max(evaluations, 1);
+            calls++;
+            if (sampled < RESERVOIR_SIZE) {
+                samples[sampled++] = perEvaluation;
+                return;
+            }
+
+            final long slot = ThreadLocalRandom.current().nextLong(calls);
+            if (slot < RESERVOIR_SIZE) samples[(int) slot] = perEvaluation;
+        }
+
+        synchronized Result getResult(final ExpressionContext context) {
+            final long[] sorted = Arrays.copyOf(samples, sampled);
+            Arrays.sort(sorted);
+
+            final Result result = new Result();
+            result.owner = context.getOwner();
+            result.expression = context.getSource();
+            result.count = count;
+            result.totalMs = totalNanos / 1e6;
+            result.averageUs = count <= 0 ? 0 : totalNanos / 1e3 / count;
+            result.p99Us = sorted.length <= 0 ? 0 : sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * 0.99) - 1)] / 1e3;
+            result.bytesPerEvaluation = count <= 0 ? 0 : (double) allocatedBytes / count;
+            return result;
+        }
+    }
+
+    /**
+     * The results for a single expression
+     */
+    public static final class Result {
+        @Expose
+        public String owner;
+
+        @Expose
+        public String expression;
+
+        @Expose
+        public long count;
+
+        @Expose
+        public double totalMs;
+
+        @Expose
+        public double averageUs;
+
+        @Expose
+        public double p99Us;
+
+        @Expose
+        public double bytesPerEvaluation;
+    }
+
+    private static final class Dump {
+        @Expose
+        double durationMs;
+
+        @Expose
+        boolean allocationsTracked;
+
+        @Expose
+        List<Result> expressions;
+    }
+}
@@ -0,0 +1,100 @@
+package org.winterblade.minecraft.mods.needs.api.expressions;
+
+/**
+ * A small least recently used cache of results, keyed on the values of the arguments an expression actually reads.
+ * Entries are kept in flat arrays and found with a scan over their hashes, which is cheap at the sizes this is meant
+ * for; it is only worth using when the expression costs more than that scan does. This isn't thread safe; callers
+ * should hold its lock.
+ */
+final class ExpressionResultCache {
+    /**
+     * The largest number of results that can be kept for a single expression
+     */
+    static final int MAX_SIZE = 256;
+
+    private final int[] slots;
+    private final long[] hashes;
+    private final long[] keys;
+    private final double[] results;
+    private final long[] lastUsed;
+
+    private int count;
+    private long clock;
+
+    /**
+     * @param slots The slots of the arguments the expression reads
+     * @param size  The number of results to keep
+     */
+    ExpressionResultCache(final int[] slots, final int size) {
+        this.slots = slots;
+        hashes = new long[size];
+        keys = new long[size * slots.length];
+        results = new double[size];
+        lastUsed = new long[size];
+    }
+
+    /**
+     * Looks up the entry for the arguments, marking it as used
+     * @param values The argument values, by slot
+     * @return The entry, or -1 if there isn't one
+     */
+    int find(final double[] values) {
+        final long hash = hash(values);
+
+        for (int i = 0; i < count; i++) {
+            if (hashes[i] != hash || !matches(i, values)) continue;
+
+            lastUsed[i] = ++clock;
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param entry The entry, from {@link ExpressionResultCache#find(double[])}
+     * @return The result stored in it
+     */
+    double getResult(final int entry) {
+        return results[entry];
+    }
+
+    /**
+     * Stores the result for the arguments, replacing the least recently used entry if the cache is full
+     * @param values The argument values, by slot
+     * @param result The result
+     */
+    void put(final double[] values, final double result) {
+        final int entry = count < results.length ? count++ : getLeastRecentlyUsed();
+
+        hashes[entry] = hash(values);
+        for (int s = 0; s < slots.length; s++) {
+            keys[entry * slots.length + s] = Double.doubleToLongBits(values[slots[s]]);
+        }
+        results[entry] = result;
+        lastUsed[entry] = ++clock;
+    }
+
+    private long hash(final double[] values) {
+        long hash = 1;
+        for (final int slot : slots) {
+            hash = 31 * hash + Double.doubleToLongBits(values[slot]);
+        }
+        return hash;
+    }
+
+    private boolean matches(final int entry, final double[] values) {
+        final int offset = entry * slots.length;
+        for (int s = 0; s < slots.length; s++) {
+            if (keys[offset + s] != Double.doubleToLongBits(values[slots[s]])) return false;
+        }
+        return true;
+    }
+
+    private int getLeastRecentlyUsed() {
+        int oldest = 0;
+        for (int i = 1; i < count; i++) {
+            if (lastUsed[i] < lastUsed[oldest]) oldest = i;
+        }
+        return oldest;
+    }
+}
@@ -0,0 +1,151 @@
+package org.winterblade.minecraft.mods.needs.api.expressions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An expression string after a single pass over it, with each need(...) reference swapped out for a variable, and the
+ * names of every other variable it mentions. Templates only depend on the source string, so they're cached and shared
+ * by every expression written the same way.
+ */
+final class ExpressionTemplate {
+    private static final Map<String, ExpressionTemplate> cache = new ConcurrentHashMap<>();
+
+    /**
+     * The expression, with need(...) references replaced
+     */
+    final String expression;
+
+    /**
+     * The variable each need was replaced with, mapped to the name of the need as it was first written
+     */
+    final Map<String, String> needs;
+
+    /**
+     * The names of every other identifier in the expression, which includes any variables and function names
+     */
+    final Set<String> identifiers;
+
+    private ExpressionTemplate(final String expression, final Map<String, String> needs, final Set<String> identifiers) {
+        this.expression = expression;
+        this.needs = Collections.unmodifiableMap(needs);
+        this.identifiers = Collections.unmodifiableSet(identifiers);
+    }
+
+    /**
+     * Gets the template for the source, parsing it if it hasn't been already
+     * @param source The expression string
+     * @return The template
+     */
+    static ExpressionTemplate of(final String source) {
+        return cache.computeIfAbsent(source, ExpressionTemplate::parse);
+    }
+
+    /**
+     * Forgets every cached template
+     */
+    static void clearCache() {
+        cache.clear();
+    }
+
+    private static ExpressionTemplate parse(final String source) {
+        final StringBuilder output = new StringBuilder(source.length());
+        final Map<String, String> needs = new LinkedHashMap<>();
+        final Map<String, String> byName = new HashMap<>();
+        final Set<String> identifiers = new HashSet<>();
+
+        int pos = 0;
+        while (pos < source.length()) {
+            final char c = source.charAt(pos);
+
+            // Numbers are copied as-is, so that exponents ('2e3') aren't mistaken for identifiers
+            if (Character.isDigit(c) || c == '.') {
+                final int start = pos;
+                pos = skipNumber(source, pos);
+                output.append(source, start, pos);
+                continue;
+            }
+
+            if (!Character.isLetter(c) && c != '_') {
+                output.append(c);
+                pos++;
+                continue;
+            }
+
+            final int start = pos;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) pos++;
+            final String identifier = source.substring(start, pos);
+
+            final int close = identifier.equals("need") ? getNeedEnd(source, pos) : -1;
+            if (close < 0) {
+                identifiers.add(identifier);
+                output.append(identifier);
+                continue;
+            }
+
+            // Differently capitalized references to the same need share a variable
+            final String name = source.substring(pos + 1, close);
+            String variable = byName.get(name.toLowerCase());
+            if (variable == null) {
+                variable = getVariableName(byName.size());
+                byName.put(name.toLowerCase(), variable);
+                needs.put(variable, name);
+            }
+
+            output.append(variable);
+            pos = close + 1;
+        }
+
+        return new ExpressionTemplate(output.toString(), needs, identifiers);
+    }
+
+    /**
+     * Checks if what follows 'need' is a valid reference, of the form '(name)', where the name is made up of letters,
+     * numbers and spaces
+     * @param source The expression string
+     * @param pos    The position just after 'need'
+     * @return The position of the closing parenthesis, or -1 if this isn't a reference
+     */
+    private static int getNeedEnd(final String source, final int pos) {
+        if (source.length() <= pos || source.charAt(pos) != '(') return -1;
+
+        for (int i = pos + 1; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if (c == ')') return pos + 1 < i ? i : -1;
+            if (!Character.isLetterOrDigit(c) && c != ' ') return -1;
+        }
+        return -1;
+    }
+
+    private static int skipNumber(final String source, int pos) {
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) pos++;
+
+        if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+            int exp = pos + 1;
+            if (exp < source.length() && (source.charAt(exp) == '+' || source.charAt(exp) == '-')) exp++;
+            if (exp < source.length() && Character.isDigit(source.charAt(exp))) {
+                pos = exp;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Gets the variable name for the nth need; needA through needZ, then needAA through needAZ, and so on
+     * @param index The index of the need
+     * @return The variable name
+     */
+    private static String getVariableName(final int index) {
+        final StringBuilder name = new StringBuilder("need");
+        for (int i = 0; i < index / 26; i++) {
+            name.append('A');
+        }
+        return name.append((char) ('A' + index % 26)).toString();
+    }
+}
@@ -6,11 +6,47 @@ import org.winterblade.minecraft.mods.needs.api.needs.LazyNeed;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
-public interface IExpression extends Function<PlayerEntity, Double> {
+public interface IExpression extends Function<PlayerEntity, Double>, ToDoubleFunction<PlayerEntity> {
     IExpression setIfRequired(String arg, Supplier<Double> value);
 
     boolean isRequired(String arg);
 
+    /**
+     * Sets the argument in the given slot in the calling thread's frame
+     * @param slot  The slot, from {@link ExpressionContext#getSlot(String)}
+     * @param value The value
+     * @return The expression for chaining
+     */
+    IExpression set(int slot, double value);
+
+    /**
+     * Checks if the argument in the given slot is required
+     * @param slot The slot, from {@link ExpressionContext#getSlot(String)}
+     * @return True if so, false otherwise
+     */
+    boolean isRequired(int slot);
+
     List<LazyNeed> getNeeds();
+
+    /**
+     * Creates a new frame to hold arguments for this expression, for callers that want to evaluate it off the thread
+     * it's usually evaluated on
+     * @return The frame
+     */
+    ExpressionFrame newFrame();
+
+    /**
+     * Evaluates the expression against the arguments in the given frame rather than the calling thread's own
+     * @param player The player to calculate on
+     * @param frame  The frame, from {@link IExpression#newFrame()}
+     * @return The result
+     */
+    double applyAsDouble(PlayerEntity player, ExpressionFrame frame);
+
+    @Override
+    default Double apply(final PlayerEntity player) {
+        return applyAsDouble(player);
+    }
 }
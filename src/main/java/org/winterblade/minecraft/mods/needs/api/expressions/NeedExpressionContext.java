@@ -19,12 +19,39 @@ public class NeedExpressionContext extends ExpressionContext {
     }
 
     protected final ArrayList<String> elements = new ArrayList<>(params);
+    private int currentSlot = -1;
 
     public NeedExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        currentSlot = getSlot(CURRENT_NEED_VALUE);
+    }
+
     public void setCurrentNeedValue(final Need need, final PlayerEntity player) {
-        setIfRequired(CURRENT_NEED_VALUE, () -> need.getValue(player));
+        if (isRequired(currentSlot)) set(currentSlot, need.getValue(player));
+    }
+
+    public void setCurrentNeedValue(final double value) {
+        set(currentSlot, value);
+    }
+
+    /**
+     * Fills in the current value of the need for every player in the batch
+     * @param need    The need
+     * @param players The players, one per row
+     * @param batch   The batch to write to
+     * @param count   The number of players
+     */
+    public void setCurrentNeedValues(final Need need, final PlayerEntity[] players, final ExpressionBatch batch, final int count) {
+        if (!isRequired(currentSlot)) return;
+
+        batch.ensureCapacity(count);
+        for (int i = 0; i < count; i++) {
+            batch.set(currentSlot, i, need.getValue(players[i]));
+        }
     }
 
     @Override
@@ -19,9 +19,33 @@ public class OtherNeedChangedExpressionContext extends NeedExpressionContext {
         docs.put(CHANGE, "The amount the need changed by, or: (current - previous).");
     }
 
+    private int otherSlot = -1;
+    private int previousSlot = -1;
+    private int changeSlot = -1;
+
     public OtherNeedChangedExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        otherSlot = getSlot(OTHER);
+        previousSlot = getSlot(PREVIOUS);
+        changeSlot = getSlot(CHANGE);
+    }
+
+    /**
+     * Sets the values describing how the other need changed
+     * @param current  The current value of the other need
+     * @param previous The previous value of the other need
+     * @param change   The amount it changed by
+     */
+    public void setOtherNeedChange(final double current, final double previous, final double change) {
+        set(otherSlot, current);
+        set(previousSlot, previous);
+        set(changeSlot, change);
+    }
+
     @Override
     public List<String> getElements() {
         final List<String> elements = super.getElements();
@@ -0,0 +1,399 @@
+package org.winterblade.minecraft.mods.needs.api.expressions.compiler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+/**
+ * An expression compiled down to a flat list of stack machine instructions. Arguments are read from numbered slots in
+ * an array the caller passes in, along with the stack to use; the expression itself is never written to after it's
+ * compiled, so it can be evaluated from any number of threads as long as each has its own arrays. Expressions that
+ * reduce to scale * argument + offset skip the stack machine entirely.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CompiledExpression {
+    // Opcodes; anything after the opcode in the comment is an operand following it in the code
+    static final int CONST = 0;     // index into the constants
+    static final int ARG = 1;       // argument slot
+    static final int ADD = 2;
+    static final int SUB = 3;
+    static final int MUL = 4;
+    static final int DIV = 5;
+    static final int POW = 6;
+    static final int NEG = 7;
+    static final int EQ = 8;
+    static final int NE = 9;
+    static final int LT = 10;
+    static final int LE = 11;
+    static final int GT = 12;
+    static final int GE = 13;
+    static final int AND = 14;
+    static final int OR = 15;
+    static final int FN = 16;       // function ID from Functions
+    static final int MIN = 17;      // argument count
+    static final int MAX = 18;      // argument count
+    static final int BRANCH = 19;   // else target, end target
+    static final int JUMP = 20;     // target
+
+    /**
+     * mXparser compares numbers within this epsilon of each other as equal, and rounds results within it of a whole
+     * number to that number; we do the same so the two always agree.
+     */
+    static final double EPSILON = 1e-14;
+
+    private final int[] code;
+    private final double[] constants;
+    private final List<String> argumentNames;
+    private final boolean[] used;
+    private final int stackSize;
+    private final boolean branches;
+
+    // If the whole expression is scale * argument + offset, the slot of that argument; -1 otherwise
+    private final int affineSlot;
+    private final double affineScale;
+    private final double affineOffset;
+
+    CompiledExpression(final int[] code, final double[] constants, final List<String> argumentNames,
+                       final boolean[] used, final int maxStack,
+                       final int affineSlot, final double affineScale, final double affineOffset) {
+        this.code = code;
+        this.constants = constants;
+        this.argumentNames = Collections.unmodifiableList(argumentNames);
+        this.used = used;
+        this.stackSize = Math.max(maxStack, 1);
+        this.branches = hasBranches(code);
+        this.affineSlot = affineSlot;
+        this.affineScale = affineScale;
+        this.affineOffset = affineOffset;
+    }
+
+    /**
+     * Checks if the expression folded down to a single value
+     * @return True if it doesn't depend on any of its arguments
+     */
+    public boolean isConstant() {
+        return code.length == 2 && code[0] == CONST;
+    }
+
+    /**
+     * Checks if the expression reduced to a multiple of a single argument plus a constant
+     * @return True if it's evaluated without running any code
+     */
+    public boolean isAffine() {
+        return 0 <= affineSlot;
+    }
+
+    /**
+     * Checks if the expression contains if(), which means it can't be evaluated down whole columns at once
+     * @return True if it has to be evaluated a row at a time
+     */
+    public boolean hasBranches() {
+        return branches;
+    }
+
+    /**
+     * Gets the slot for the named argument
+     * @param name The argument name
+     * @return The slot, or -1 if there isn't an argument with that name
+     */
+    public int getSlot(final String name) {
+        return argumentNames.indexOf(name);
+    }
+
+    /**
+     * Checks if the expression actually reads the argument
+     * @param name The argument name
+     * @return True if it does
+     */
+    public boolean isUsed(final String name) {
+        final int slot = getSlot(name);
+        return 0 <= slot && used[slot];
+    }
+
+    /**
+     * Checks if the expression actually reads the argument in the given slot
+     * @param slot The slot, from {@link CompiledExpression#getSlot(String)}
+     * @return True if it does
+     */
+    public boolean isUsed(final int slot) {
+        return used[slot];
+    }
+
+    /**
+     * @return The number of argument slots
+     */
+    public int getArgumentCount() {
+        return argumentNames.size();
+    }
+
+    /**
+     * @return The size of the stack that needs to be passed to {@link CompiledExpression#evaluate(double[], double[])}
+     */
+    public int getStackSize() {
+        return stackSize;
+    }
+
+    /**
+     * Runs the expression
+     * @param args  The argument values, by slot
+     * @param stack The stack to use, at least {@link CompiledExpression#getStackSize()} long
+     * @return The result
+     */
+    public double evaluate(final double[] args, final double[] stack) {
+        return evaluate(args, stack, null);
+    }
+
+    /**
+     * Runs the expression, calculating lazy arguments only when they're read; each one that's read is written back
+     * into args and removed from lazy, so it's only calculated once
+     * @param args  The argument values, by slot
+     * @param stack The stack to use, at least {@link CompiledExpression#getStackSize()} long
+     * @param lazy  The suppliers for arguments that haven't been calculated yet, by slot; may be null if there are none
+     * @return The result
+     */
+    public double evaluate(final double[] args, final double[] stack, final DoubleSupplier[] lazy) {
+        if (0 <= affineSlot) {
+            if (lazy != null) resolve(args, lazy, affineSlot);
+            return Functions.roundAlmostInt(affineScale * args[affineSlot] + affineOffset);
+        }
+
+        final int[] code = this.code;
+        final double[] s = stack;
+        int sp = -1;
+        int pc = 0;
+
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case CONST:
+                    s[++sp] = constants[code[pc++]];
+                    break;
+                case ARG: {
+                    final int slot = code[pc++];
+                    if (lazy != null) resolve(args, lazy, slot);
+                    s[++sp] = args[slot];
+                    break;
+                }
+                case ADD:
+                    sp--;
+                    s[sp] = s[sp] + s[sp + 1];
+                    break;
+                case SUB:
+                    sp--;
+                    s[sp] = s[sp] - s[sp + 1];
+                    break;
+                case MUL:
+                    sp--;
+                    s[sp] = s[sp] * s[sp + 1];
+                    break;
+                case DIV:
+                    sp--;
+                    s[sp] = Functions.divide(s[sp], s[sp + 1]);
+                    break;
+                case POW:
+                    sp--;
+                    s[sp] = Functions.power(s[sp], s[sp + 1]);
+                    break;
+                case NEG:
+                    s[sp] = -s[sp];
+                    break;
+                case EQ:
+                case NE:
+                case LT:
+                case LE:
+                case GT:
+                case GE:
+                    sp--;
+                    s[sp] = Functions.compare(code[pc - 1], s[sp], s[sp + 1]);
+                    break;
+                case AND:
+                    sp--;
+                    s[sp] = Functions.and(s[sp], s[sp + 1]);
+                    break;
+                case OR:
+                    sp--;
+                    s[sp] = Functions.or(s[sp], s[sp + 1]);
+                    break;
+                case FN:
+                    s[sp] = Functions.apply(code[pc++], s[sp]);
+                    break;
+                case MIN:
+                case MAX: {
+                    final boolean isMin = code[pc - 1] == MIN;
+                    final int count = code[pc++];
+                    sp -= count - 1;
+                    s[sp] = Functions.minMax(isMin, s, sp, count);
+                    break;
+                }
+                case BRANCH: {
+                    final double condition = s[sp--];
+                    final int elseTarget = code[pc++];
+                    final int endTarget = code[pc++];
+
+                    if (Double.isNaN(condition)) {
+                        s[++sp] = Double.NaN;
+                        pc = endTarget;
+                    } else if (condition == 0) {
+                        pc = elseTarget;
+                    }
+                    break;
+                }
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown opcode " + code[pc - 1]);
+            }
+        }
+
+        return Functions.roundAlmostInt(s[0]);
+    }
+
+    private static void resolve(final double[] args, final DoubleSupplier[] lazy, final int slot) {
+        final DoubleSupplier value = lazy[slot];
+        if (value == null) return;
+
+        args[slot] = value.getAsDouble();
+        lazy[slot] = null;
+    }
+
+    /**
+     * Runs the expression for a batch of rows at once. Each instruction is applied down the whole column before moving
+     * on to the next, which keeps the per-row work to tight loops over arrays; expressions containing if() can't be run
+     * that way, and must be run a row at a time by the caller instead (see {@link CompiledExpression#hasBranches()}).
+     * @param args  The argument columns, by slot
+     * @param stack The stack columns to use, at least {@link CompiledExpression#getStackSize()} of them, each at least
+     *              count long
+     * @param out   The array to write the results to
+     * @param count The number of rows
+     */
+    public void evaluate(final double[][] args, final double[][] stack, final double[] out, final int count) {
+        if (0 <= affineSlot) {
+            final double[] column = args[affineSlot];
+            for (int i = 0; i < count; i++) {
+                out[i] = affineScale * column[i] + affineOffset;
+            }
+            roundAll(out, count);
+            return;
+        }
+
+        if (branches) throw new IllegalStateException("Expressions containing if() must be evaluated a row at a time.");
+
+        final int[] code = this.code;
+        int sp = -1;
+        int pc = 0;
+
+        while (pc < code.length) {
+            final int op = code[pc++];
+            switch (op) {
+                case CONST:
+                    Arrays.fill(stack[++sp], 0, count, constants[code[pc++]]);
+                    break;
+                case ARG:
+                    System.arraycopy(args[code[pc++]], 0, stack[++sp], 0, count);
+                    break;
+                case NEG: {
+                    final double[] a = stack[sp];
+                    for (int i = 0; i < count; i++) {
+                        a[i] = -a[i];
+                    }
+                    break;
+                }
+                case FN: {
+                    final int fn = code[pc++];
+                    final double[] a = stack[sp];
+                    for (int i = 0; i < count; i++) {
+                        a[i] = Functions.apply(fn, a[i]);
+                    }
+                    break;
+                }
+                case MIN:
+                case MAX: {
+                    final int n = code[pc++];
+                    sp -= n - 1;
+                    minMaxColumns(op == MIN, stack, sp, n, count);
+                    break;
+                }
+                default:
+                    sp--;
+                    binaryColumns(op, stack[sp], stack[sp + 1], count);
+                    break;
+            }
+        }
+
+        System.arraycopy(stack[0], 0, out, 0, count);
+        roundAll(out, count);
+    }
+
+    /**
+     * Applies a two argument operator down a pair of columns, leaving the result in the first
+     */
+    private static void binaryColumns(final int op, final double[] a, final double[] b, final int count) {
+        switch (op) {
+            case ADD:
+                for (int i = 0; i < count; i++) {
+                    a[i] = a[i] + b[i];
+                }
+                break;
+            case SUB:
+                for (int i = 0; i < count; i++) {
+                    a[i] = a[i] - b[i];
+                }
+                break;
+            case MUL:
+                for (int i = 0; i < count; i++) {
+                    a[i] = a[i] * b[i];
+                }
+                break;
+            default:
+                for (int i = 0; i < count; i++) {
+                    a[i] = Functions.binary(op, a[i], b[i]);
+                }
+                break;
+        }
+    }
+
+    private static void minMaxColumns(final boolean isMin, final double[][] stack, final int from, final int n,
+                                      final int count) {
+        final double[] result = stack[from];
+        for (int k = from + 1; k < from + n; k++) {
+            final double[] column = stack[k];
+            for (int i = 0; i < count; i++) {
+                final double v = column[i];
+                result[i] = Double.isNaN(v) || Double.isNaN(result[i])
+                        ? Double.NaN
+                        : isMin ? Math.min(result[i], v) : Math.max(result[i], v);
+            }
+        }
+    }
+
+    private static void roundAll(final double[] values, final int count) {
+        for (int i = 0; i < count; i++) {
+            values[i] = Functions.roundAlmostInt(values[i]);
+        }
+    }
+
+    /**
+     * Checks if the code has any jumps in it
+     */
+    private static boolean hasBranches(final int[] code) {
+        int pc = 0;
+        while (pc < code.length) {
+            switch (code[pc++]) {
+                case BRANCH:
+                case JUMP:
+                    return true;
+                case CONST:
+                case ARG:
+                case FN:
+                case MIN:
+                case MAX:
+                    pc++;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return false;
+    }
+}
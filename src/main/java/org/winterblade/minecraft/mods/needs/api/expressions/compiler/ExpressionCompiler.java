@@ -0,0 +1,725 @@
+package org.winterblade.minecraft.mods.needs.api.expressions.compiler;
+
+import org.mariuszgromada.math.mxparser.Argument;
+import org.mariuszgromada.math.mxparser.Expression;
+import org.winterblade.minecraft.mods.needs.NeedsMod;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles the common subset of mXparser's syntax (arithmetic, comparisons, boolean and/or, if, min/max and the usual
+ * single argument functions) into a {@link CompiledExpression}. Anything outside of that subset, or anything that
+ * could be read more than one way (such as chained comparisons or mixed and/or without parentheses), isn't compiled;
+ * those expressions should keep using mXparser.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExpressionCompiler {
+    /**
+     * Values to plug into the arguments when checking the compiled expression against mXparser
+     */
+    private static final double[] SAMPLES = {0, 1, -1, 2, 0.5, 10, -3.25, 100, 7, 0.1, -20, 3};
+    private static final int SAMPLE_RUNS = 8;
+
+    private ExpressionCompiler() {}
+
+    /**
+     * Compiles the mXparser expression, then checks that the result agrees with mXparser for a spread of argument
+     * values; the mXparser argument values are reset to zero afterwards
+     * @param parsed    The parsed mXparser expression; it should already have passed its syntax check
+     * @param arguments The arguments the expression was created with
+     * @return The compiled expression, or null if it couldn't be compiled or doesn't agree with mXparser
+     */
+    @Nullable
+    public static CompiledExpression compile(final Expression parsed, final List<Argument> arguments) {
+        final String source = parsed.getExpressionString();
+        final CompiledExpression compiled = compile(
+            source,
+            arguments.stream().map(Argument::getArgumentName).collect(Collectors.toList())
+        );
+
+        if (compiled == null) {
+            NeedsMod.LOGGER.debug("Expression '" + source + "' uses syntax that can't be compiled; it will be run by mXparser.");
+            return null;
+        }
+
+        try {
+            if (agrees(compiled, parsed, arguments)) return compiled;
+
+            NeedsMod.LOGGER.warn("Compiled expression '" + source + "' doesn't agree with mXparser; it will be run by mXparser instead.");
+            return null;
+        } finally {
+            arguments.forEach((a) -> a.setArgumentValue(0));
+        }
+    }
+
+    /**
+     * Compiles the expression
+     * @param source        The expression
+     * @param argumentNames The names of the arguments, in slot order
+     * @return The compiled expression, or null if it uses anything that isn't supported
+     */
+    @Nullable
+    public static CompiledExpression compile(final String source, final List<String> argumentNames) {
+        try {
+            final Node root = new Parser(new Tokenizer(source).tokenize(), argumentNames).parse().fold();
+
+            final Emitter emitter = new Emitter(argumentNames.size());
+            root.emit(emitter);
+            return emitter.build(argumentNames, Affine.of(root));
+        } catch (final Unsupported e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the compiled expression and mXparser side by side over the sample values
+     */
+    private static boolean agrees(final CompiledExpression compiled, final Expression parsed, final List<Argument> arguments) {
+        final double[] args = new double[arguments.size()];
+        final double[] stack = new double[compiled.getStackSize()];
+
+        for (int run = 0; run < SAMPLE_RUNS; run++) {
+            for (int i = 0; i < args.length; i++) {
+                args[i] = SAMPLES[(run + i * 5) % SAMPLES.length];
+                arguments.get(i).setArgumentValue(args[i]);
+            }
+
+            if (!same(compiled.evaluate(args, stack), parsed.calculate())) return false;
+        }
+        return true;
+    }
+
+    private static boolean same(final double a, final double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) return Double.isNaN(a) && Double.isNaN(b);
+        if (Double.isInfinite(a) || Double.isInfinite(b)) return a == b;
+        return Math.abs(a - b) <= 1e-9 * Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
+    }
+
+    /**
+     * Thrown when the expression uses something we don't support
+     */
+    private static class Unsupported extends RuntimeException {
+        Unsupported(final String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /*
+     * Tokenizing
+     */
+
+    private enum TokenType { NUMBER, NAME, OPERATOR, OPEN, CLOSE, COMMA, END }
+
+    private static class Token {
+        private final TokenType type;
+        private final String text;
+        private final double value;
+
+        Token(final TokenType type, final String text, final double value) {
+            this.type = type;
+            this.text = text;
+            this.value = value;
+        }
+
+        boolean is(final String operator) {
+            return type == TokenType.OPERATOR && text.equals(operator);
+        }
+    }
+
+    private static class Tokenizer {
+        private static final String[] OPERATORS = {
+            "&&", "||", "==", "<>", "!=", "~=", "<=", ">=",
+            "+", "-", "*", "/", "^", "=", "<", ">", "&", "|"
+        };
+
+        private final String source;
+        private int pos;
+
+        Tokenizer(final String source) {
+            this.source = source;
+        }
+
+        List<Token> tokenize() {
+            final List<Token> tokens = new ArrayList<>();
+
+            while (true) {
+                while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+                if (source.length() <= pos) break;
+
+                final char c = source.charAt(pos);
+                if (Character.isDigit(c) || (c == '.' && pos + 1 < source.length() && Character.isDigit(source.charAt(pos + 1)))) {
+                    tokens.add(number());
+                } else if (Character.isLetter(c) || c == '_') {
+                    final int start = pos;
+                    while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) pos++;
+                    tokens.add(new Token(TokenType.NAME, source.substring(start, pos), 0));
+                } else if (c == '(') {
+                    pos++;
+                    tokens.add(new Token(TokenType.OPEN, "(", 0));
+                } else if (c == ')') {
+                    pos++;
+                    tokens.add(new Token(TokenType.CLOSE, ")", 0));
+                } else if (c == ',') {
+                    pos++;
+                    tokens.add(new Token(TokenType.COMMA, ",", 0));
+                } else {
+                    tokens.add(operator());
+                }
+            }
+
+            tokens.add(new Token(TokenType.END, "", 0));
+            return tokens;
+        }
+
+        private Token number() {
+            final int start = pos;
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            if (pos < source.length() && source.charAt(pos) == '.') {
+                pos++;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            }
+
+            // Scientific notation; '2e' on its own is ambiguous, so leave that to mXparser
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                int exp = pos + 1;
+                if (exp < source.length() && (source.charAt(exp) == '+' || source.charAt(exp) == '-')) exp++;
+                if (source.length() <= exp || !Character.isDigit(source.charAt(exp))) throw new Unsupported("Ambiguous exponent");
+
+                pos = exp;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            }
+
+            // Implicit multiplication (2x) isn't something mXparser does either
+            if (pos < source.length() && (Character.isLetter(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                throw new Unsupported("Number followed by a name");
+            }
+
+            final String text = source.substring(start, pos);
+            return new Token(TokenType.NUMBER, text, Double.parseDouble(text));
+        }
+
+        private Token operator() {
+            for (final String op : OPERATORS) {
+                if (source.startsWith(op, pos)) {
+                    pos += op.length();
+                    return new Token(TokenType.OPERATOR, op, 0);
+                }
+            }
+            throw new Unsupported("Unknown character '" + source.charAt(pos) + "'");
+        }
+    }
+
+    /*
+     * Parsing
+     */
+
+    private static class Parser {
+        private final List<Token> tokens;
+        private final List<String> argumentNames;
+        private int pos;
+
+        Parser(final List<Token> tokens, final List<String> argumentNames) {
+            this.tokens = tokens;
+            this.argumentNames = argumentNames;
+        }
+
+        Node parse() {
+            final Node root = or();
+            if (peek().type != TokenType.END) throw new Unsupported("Unexpected '" + peek().text + "'");
+            return root;
+        }
+
+        private Token peek() {
+            return tokens.get(pos);
+        }
+
+        private Token next() {
+            return tokens.get(pos++);
+        }
+
+        private void expect(final TokenType type) {
+            if (next().type != type) throw new Unsupported("Expected " + type);
+        }
+
+        private Node or() {
+            Node left = and();
+            while (peek().is("|") || peek().is("||")) {
+                next();
+                left = new BinaryNode(CompiledExpression.OR, notUngroupedAnd(left), notUngroupedAnd(and()));
+            }
+            return left;
+        }
+
+        private Node and() {
+            Node left = comparison();
+            while (peek().is("&") || peek().is("&&")) {
+                next();
+                left = new BinaryNode(CompiledExpression.AND, left, comparison());
+            }
+            return left;
+        }
+
+        /**
+         * Mixing ands and ors without parentheses depends on precedence rules we'd rather not guess at
+         */
+        private static Node notUngroupedAnd(final Node node) {
+            if (!node.grouped && node instanceof BinaryNode && ((BinaryNode) node).op == CompiledExpression.AND) {
+                throw new Unsupported("Mixed and/or");
+            }
+            return node;
+        }
+
+        private Node comparison() {
+            final Node left = additive();
+            final int op = comparisonOp(peek());
+            if (op < 0) return left;
+
+            next();
+            final Node right = additive();
+            if (0 <= comparisonOp(peek())) throw new Unsupported("Chained comparison");
+            return new BinaryNode(op, left, right);
+        }
+
+        private static int comparisonOp(final Token token) {
+            if (token.type != TokenType.OPERATOR) return -1;
+            switch (token.text) {
+                case "=":
+                case "==":
+                    return CompiledExpression.EQ;
+                case "<>":
+                case "!=":
+                case "~=":
+                    return CompiledExpression.NE;
+                case "<": return CompiledExpression.LT;
+                case "<=": return CompiledExpression.LE;
+                case ">": return CompiledExpression.GT;
+                case ">=": return CompiledExpression.GE;
+                default: return -1;
+            }
+        }
+
+        private Node additive() {
+            Node left = term();
+            while (peek().is("+") || peek().is("-")) {
+                final int op = next().is("+") ? CompiledExpression.ADD : CompiledExpression.SUB;
+                left = new BinaryNode(op, left, term());
+            }
+            return left;
+        }
+
+        private Node term() {
+            Node left = unary();
+            while (peek().is("*") || peek().is("/")) {
+                final int op = next().is("*") ? CompiledExpression.MUL : CompiledExpression.DIV;
+                left = new BinaryNode(op, left, unary());
+            }
+            return left;
+        }
+
+        private Node unary() {
+            if (peek().is("-")) {
+                next();
+                return new UnaryNode(CompiledExpression.NEG, -1, unary());
+            }
+            if (peek().is("+")) {
+                next();
+                return unary();
+            }
+            return power();
+        }
+
+        private Node power() {
+            final Node base = primary();
+            if (!peek().is("^")) return base;
+
+            next();
+            final Node exponent = peek().is("-") || peek().is("+") ? unary() : primary();
+            if (peek().is("^")) throw new Unsupported("Chained power");
+            return new BinaryNode(CompiledExpression.POW, base, exponent);
+        }
+
+        private Node primary() {
+            final Token token = next();
+            switch (token.type) {
+                case NUMBER:
+                    return new NumberNode(token.value);
+                case OPEN: {
+                    final Node inner = or();
+                    expect(TokenType.CLOSE);
+                    inner.grouped = true;
+                    return inner;
+                }
+                case NAME:
+                    if (peek().type == TokenType.OPEN) return call(token.text);
+                    return name(token.text);
+                default:
+                    throw new Unsupported("Unexpected '" + token.text + "'");
+            }
+        }
+
+        private Node name(final String name) {
+            final int slot = argumentNames.indexOf(name);
+            if (0 <= slot) return new ArgumentNode(slot);
+
+            final Double constant = Functions.CONSTANTS.get(name);
+            if (constant != null) return new NumberNode(constant);
+
+            throw new Unsupported("Unknown name '" + name + "'");
+        }
+
+        private Node call(final String name) {
+            expect(TokenType.OPEN);
+            final List<Node> args = new ArrayList<>();
+            if (peek().type != TokenType.CLOSE) {
+                args.add(or());
+                while (peek().type == TokenType.COMMA) {
+                    next();
+                    args.add(or());
+                }
+            }
+            expect(TokenType.CLOSE);
+
+            switch (name) {
+                case "if":
+                    if (args.size() != 3) throw new Unsupported("if takes three arguments");
+                    return new IfNode(args.get(0), args.get(1), args.get(2));
+                case "min":
+                case "max":
+                    if (args.isEmpty()) throw new Unsupported(name + " takes at least one argument");
+                    return new MinMaxNode(name.equals("min"), args.toArray(new Node[0]));
+                default:
+                    final Integer fn = Functions.UNARY.get(name);
+                    if (fn == null || args.size() != 1) throw new Unsupported("Unsupported function '" + name + "'");
+                    return new UnaryNode(CompiledExpression.FN, fn, args.get(0));
+            }
+        }
+    }
+
+    /*
+     * The syntax tree
+     */
+
+    abstract static class Node {
+        /**
+         * If the node was wrapped in parentheses
+         */
+        boolean grouped;
+
+        abstract void emit(Emitter emitter);
+
+        /**
+         * Evaluates anything that doesn't depend on an argument
+         * @return The simplified node, which may be this one
+         */
+        abstract Node fold();
+    }
+
+    static class NumberNode extends Node {
+        final double value;
+
+        NumberNode(final double value) {
+            this.value = value;
+        }
+
+        @Override
+        Node fold() {
+            return this;
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            emitter.op(CompiledExpression.CONST, emitter.constant(value));
+            emitter.push(1);
+        }
+    }
+
+    static class ArgumentNode extends Node {
+        final int slot;
+
+        ArgumentNode(final int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        Node fold() {
+            return this;
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            emitter.op(CompiledExpression.ARG, slot);
+            emitter.used[slot] = true;
+            emitter.push(1);
+        }
+    }
+
+    static class UnaryNode extends Node {
+        final int op;
+        final int fn;
+        final Node operand;
+
+        UnaryNode(final int op, final int fn, final Node operand) {
+            this.op = op;
+            this.fn = fn;
+            this.operand = operand;
+        }
+
+        @Override
+        Node fold() {
+            final Node folded = operand.fold();
+            if (!(folded instanceof NumberNode)) return new UnaryNode(op, fn, folded);
+
+            final double value = ((NumberNode) folded).value;
+            return new NumberNode(op == CompiledExpression.NEG ? -value : Functions.apply(fn, value));
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            operand.emit(emitter);
+            if (op == CompiledExpression.FN) {
+                emitter.op(op, fn);
+            } else {
+                emitter.op(op);
+            }
+        }
+    }
+
+    static class BinaryNode extends Node {
+        final int op;
+        final Node left;
+        final Node right;
+
+        BinaryNode(final int op, final Node left, final Node right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        Node fold() {
+            final Node l = left.fold();
+            final Node r = right.fold();
+            if (!(l instanceof NumberNode) || !(r instanceof NumberNode)) return new BinaryNode(op, l, r);
+
+            return new NumberNode(Functions.binary(op, ((NumberNode) l).value, ((NumberNode) r).value));
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            left.emit(emitter);
+            right.emit(emitter);
+            emitter.op(op);
+            emitter.push(-1);
+        }
+    }
+
+    static class MinMaxNode extends Node {
+        final boolean isMin;
+        final Node[] args;
+
+        MinMaxNode(final boolean isMin, final Node[] args) {
+            this.isMin = isMin;
+            this.args = args;
+        }
+
+        @Override
+        Node fold() {
+            final Node[] folded = new Node[args.length];
+            final double[] values = new double[args.length];
+            boolean constant = true;
+
+            for (int i = 0; i < args.length; i++) {
+                folded[i] = args[i].fold();
+                if (folded[i] instanceof NumberNode) {
+                    values[i] = ((NumberNode) folded[i]).value;
+                } else {
+                    constant = false;
+                }
+            }
+
+            return constant
+                    ? new NumberNode(Functions.minMax(isMin, values, 0, values.length))
+                    : new MinMaxNode(isMin, folded);
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            for (final Node arg : args) {
+                arg.emit(emitter);
+            }
+            emitter.op(isMin ? CompiledExpression.MIN : CompiledExpression.MAX, args.length);
+            emitter.push(1 - args.length);
+        }
+    }
+
+    static class IfNode extends Node {
+        final Node condition;
+        final Node then;
+        final Node otherwise;
+
+        IfNode(final Node condition, final Node then, final Node otherwise) {
+            this.condition = condition;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        Node fold() {
+            final Node c = condition.fold();
+            if (!(c instanceof NumberNode)) return new IfNode(c, then.fold(), otherwise.fold());
+
+            // Only the branch that would be taken needs to be kept
+            final double value = ((NumberNode) c).value;
+            if (Double.isNaN(value)) return c;
+            return value != 0 ? then.fold() : otherwise.fold();
+        }
+
+        @Override
+        void emit(final Emitter emitter) {
+            condition.emit(emitter);
+            emitter.op(CompiledExpression.BRANCH, 0, 0);
+            final int branch = emitter.size() - 2;
+            emitter.push(-1);
+
+            then.emit(emitter);
+            emitter.op(CompiledExpression.JUMP, 0);
+            final int jump = emitter.size() - 1;
+
+            // Only one side ever runs, so the else side starts from the same depth the then side did
+            emitter.push(-1);
+            emitter.patch(branch, emitter.size());
+            otherwise.emit(emitter);
+
+            emitter.patch(jump, emitter.size());
+            emitter.patch(branch + 1, emitter.size());
+        }
+    }
+
+    /**
+     * An expression of the form scale * argument + offset, which can skip the stack machine entirely
+     */
+    static class Affine {
+        final int slot;
+        final double scale;
+        final double offset;
+
+        private Affine(final int slot, final double scale, final double offset) {
+            this.slot = slot;
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        /**
+         * Tries to reduce the (folded) node down to a single argument's affine form
+         * @param node The node
+         * @return The affine form, or null if it isn't one
+         */
+        @Nullable
+        static Affine of(final Node node) {
+            final Affine affine = reduce(node);
+            return affine != null && 0 <= affine.slot ? affine : null;
+        }
+
+        @Nullable
+        private static Affine reduce(final Node node) {
+            if (node instanceof NumberNode) return new Affine(-1, 0, ((NumberNode) node).value);
+            if (node instanceof ArgumentNode) return new Affine(((ArgumentNode) node).slot, 1, 0);
+
+            if (node instanceof UnaryNode) {
+                final UnaryNode unary = (UnaryNode) node;
+                if (unary.op != CompiledExpression.NEG) return null;
+
+                final Affine inner = reduce(unary.operand);
+                return inner != null ? new Affine(inner.slot, -inner.scale, -inner.offset) : null;
+            }
+
+            if (!(node instanceof BinaryNode)) return null;
+
+            final BinaryNode binary = (BinaryNode) node;
+            final Affine l = reduce(binary.left);
+            if (l == null) return null;
+            final Affine r = reduce(binary.right);
+            if (r == null) return null;
+
+            switch (binary.op) {
+                case CompiledExpression.ADD:
+                case CompiledExpression.SUB: {
+                    if (0 <= l.slot && 0 <= r.slot && l.slot != r.slot) return null;
+
+                    final double sign = binary.op == CompiledExpression.ADD ? 1 : -1;
+                    return new Affine(Math.max(l.slot, r.slot), l.scale + sign * r.scale, l.offset + sign * r.offset);
+                }
+                case CompiledExpression.MUL:
+                    if (l.slot < 0) return new Affine(r.slot, r.scale * l.offset, r.offset * l.offset);
+                    if (r.slot < 0) return new Affine(l.slot, l.scale * r.offset, l.offset * r.offset);
+                    return null;
+                case CompiledExpression.DIV:
+                    if (0 <= r.slot || r.offset == 0) return null;
+                    return new Affine(l.slot, l.scale / r.offset, l.offset / r.offset);
+                default:
+                    return null;
+            }
+        }
+    }
+
+    /*
+     * Code generation
+     */
+
+    static class Emitter {
+        private int[] code = new int[32];
+        private int size;
+        private final List<Double> constants = new ArrayList<>();
+        private final boolean[] used;
+        private int depth;
+        private int maxDepth;
+
+        Emitter(final int argumentCount) {
+            used = new boolean[argumentCount];
+        }
+
+        void op(final int... values) {
+            if (code.length < size + values.length) code = Arrays.copyOf(code, Math.max(code.length * 2, size + values.length));
+            for (final int value : values) {
+                code[size++] = value;
+            }
+        }
+
+        int constant(final double value) {
+            final int existing = constants.indexOf(value);
+            if (0 <= existing) return existing;
+
+            constants.add(value);
+            return constants.size() - 1;
+        }
+
+        void push(final int change) {
+            depth += change;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void patch(final int index, final int value) {
+            code[index] = value;
+        }
+
+        CompiledExpression build(final List<String> argumentNames, @Nullable final Affine affine) {
+            final double[] constantArray = new double[constants.size()];
+            for (int i = 0; i < constantArray.length; i++) {
+                constantArray[i] = constants.get(i);
+            }
+
+            return new CompiledExpression(Arrays.copyOf(code, size), constantArray, new ArrayList<>(argumentNames), used, maxDepth,
+                    affine != null ? affine.slot : -1,
+                    affine != null ? affine.scale : 0,
+                    affine != null ? affine.offset : 0);
+        }
+    }
+}
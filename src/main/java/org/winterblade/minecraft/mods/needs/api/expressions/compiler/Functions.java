@@ -0,0 +1,182 @@
+package org.winterblade.minecraft.mods.needs.api.expressions.compiler;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The functions and operators the compiler supports, implemented to match mXparser's handling of edge cases (NaN,
+ * division by zero, epsilon comparisons) as closely as possible; anything that still disagrees is caught when the
+ * compiled expression is checked against mXparser.
+ */
+final class Functions {
+    static final int SIN = 0;
+    static final int COS = 1;
+    static final int TAN = 2;
+    static final int ASIN = 3;
+    static final int ACOS = 4;
+    static final int ATAN = 5;
+    static final int SINH = 6;
+    static final int COSH = 7;
+    static final int TANH = 8;
+    static final int EXP = 9;
+    static final int LN = 10;
+    static final int LOG10 = 11;
+    static final int LOG2 = 12;
+    static final int SQRT = 13;
+    static final int ABS = 14;
+    static final int FLOOR = 15;
+    static final int CEIL = 16;
+    static final int SGN = 17;
+
+    /**
+     * Single argument functions, by the name(s) mXparser knows them as
+     */
+    static final Map<String, Integer> UNARY = new HashMap<>();
+
+    /**
+     * Named constants mXparser knows about
+     */
+    static final Map<String, Double> CONSTANTS = new HashMap<>();
+
+    private static final double LN2 = Math.log(2);
+
+    static {
+        UNARY.put("sin", SIN);
+        UNARY.put("cos", COS);
+        UNARY.put("tan", TAN);
+        UNARY.put("tg", TAN);
+        UNARY.put("asin", ASIN);
+        UNARY.put("arcsin", ASIN);
+        UNARY.put("acos", ACOS);
+        UNARY.put("arccos", ACOS);
+        UNARY.put("atan", ATAN);
+        UNARY.put("arctan", ATAN);
+        UNARY.put("arctg", ATAN);
+        UNARY.put("sinh", SINH);
+        UNARY.put("cosh", COSH);
+        UNARY.put("tanh", TANH);
+        UNARY.put("tgh", TANH);
+        UNARY.put("exp", EXP);
+        UNARY.put("ln", LN);
+        UNARY.put("log10", LOG10);
+        UNARY.put("lg", LOG10);
+        UNARY.put("log2", LOG2);
+        UNARY.put("sqrt", SQRT);
+        UNARY.put("abs", ABS);
+        UNARY.put("floor", FLOOR);
+        UNARY.put("ceil", CEIL);
+        UNARY.put("sgn", SGN);
+
+        CONSTANTS.put("pi", Math.PI);
+        CONSTANTS.put("e", Math.E);
+    }
+
+    private Functions() {}
+
+    static double apply(final int fn, final double a) {
+        switch (fn) {
+            case SIN: return Math.sin(a);
+            case COS: return Math.cos(a);
+            case TAN: return Math.tan(a);
+            case ASIN: return Math.asin(a);
+            case ACOS: return Math.acos(a);
+            case ATAN: return Math.atan(a);
+            case SINH: return Math.sinh(a);
+            case COSH: return Math.cosh(a);
+            case TANH: return Math.tanh(a);
+            case EXP: return Math.exp(a);
+            case LN: return Math.log(a);
+            case LOG10: return Math.log10(a);
+            case LOG2: return Math.log(a) / LN2;
+            case SQRT: return Math.sqrt(a);
+            case ABS: return Math.abs(a);
+            case FLOOR: return Math.floor(a);
+            case CEIL: return Math.ceil(a);
+            case SGN: return Math.signum(a);
+            default: throw new IllegalStateException("Unknown function " + fn);
+        }
+    }
+
+    /**
+     * mXparser treats division by zero as undefined, rather than infinite
+     */
+    static double divide(final double a, final double b) {
+        if (b == 0) return Double.NaN;
+        return a / b;
+    }
+
+    /**
+     * mXparser takes odd roots of negative numbers, rather than giving up on them
+     */
+    static double power(final double a, final double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) return Double.NaN;
+        if (0 <= a || b == Math.rint(b) || Double.isInfinite(b)) return Math.pow(a, b);
+
+        final double root = 1 / b;
+        if (root == Math.rint(root) && Math.abs(root % 2) == 1) return -Math.pow(-a, b);
+        return Double.NaN;
+    }
+
+    /**
+     * Applies a two argument operator; used when folding constants, the stack machine inlines these itself
+     */
+    static double binary(final int op, final double a, final double b) {
+        switch (op) {
+            case CompiledExpression.ADD: return a + b;
+            case CompiledExpression.SUB: return a - b;
+            case CompiledExpression.MUL: return a * b;
+            case CompiledExpression.DIV: return divide(a, b);
+            case CompiledExpression.POW: return power(a, b);
+            case CompiledExpression.AND: return and(a, b);
+            case CompiledExpression.OR: return or(a, b);
+            default: return compare(op, a, b);
+        }
+    }
+
+    static double compare(final int op, final double a, final double b) {
+        if (Double.isNaN(a) || Double.isNaN(b)) return Double.NaN;
+
+        final boolean equal = a == b || Math.abs(a - b) <= CompiledExpression.EPSILON;
+        switch (op) {
+            case CompiledExpression.EQ: return equal ? 1 : 0;
+            case CompiledExpression.NE: return equal ? 0 : 1;
+            case CompiledExpression.LT: return !equal && a < b ? 1 : 0;
+            case CompiledExpression.LE: return equal || a < b ? 1 : 0;
+            case CompiledExpression.GT: return !equal && a > b ? 1 : 0;
+            case CompiledExpression.GE: return equal || a > b ? 1 : 0;
+            default: throw new IllegalStateException("Unknown comparison " + op);
+        }
+    }
+
+    static double and(final double a, final double b) {
+        if (a == 0 || b == 0) return 0;
+        if (Double.isNaN(a) || Double.isNaN(b)) return Double.NaN;
+        return 1;
+    }
+
+    static double or(final double a, final double b) {
+        if ((a != 0 && !Double.isNaN(a)) || (b != 0 && !Double.isNaN(b))) return 1;
+        if (Double.isNaN(a) || Double.isNaN(b)) return Double.NaN;
+        return 0;
+    }
+
+    static double minMax(final boolean isMin, final double[] values, final int from, final int count) {
+        double result = values[from];
+        for (int i = from + 1; i < from + count; i++) {
+            final double v = values[i];
+            if (Double.isNaN(v)) return Double.NaN;
+            result = isMin ? Math.min(result, v) : Math.max(result, v);
+        }
+        return result;
+    }
+
+    /**
+     * Rounds the result to the nearest whole number if it's within epsilon of it, as mXparser does
+     */
+    static double roundAlmostInt(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return value;
+
+        final double rounded = Math.rint(value);
+        return Math.abs(value - rounded) <= CompiledExpression.EPSILON ? rounded : value;
+    }
+}
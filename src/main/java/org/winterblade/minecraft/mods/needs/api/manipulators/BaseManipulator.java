@@ -1,10 +1,19 @@
 package org.winterblade.minecraft.mods.needs.api.manipulators;
 
 import com.google.gson.annotations.Expose;
+import net.minecraft.entity.player.PlayerEntity;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
+import org.winterblade.minecraft.mods.needs.api.PlayerSnapshot;
+import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
+import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 
+import javax.annotation.Nullable;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+
 @SuppressWarnings("WeakerAccess")
 @Document(description = "The base for most manipulators")
 public abstract class BaseManipulator implements IManipulator {
@@ -27,6 +36,20 @@ public abstract class BaseManipulator implements IManipulator {
             "will incur a slight performance hit, as the value of the need has to be calculated at the manipulator level.")
     protected double upTo = Double.POSITIVE_INFINITY;
 
+    @Expose
+    @OptionalField(defaultValue = "The tick bucket count")
+    @Document(description = "For manipulators that check on tick, the number of ticks between checks for each player; " +
+            "expensive checks (such as large block radiuses) can be run less often than cheap ones.")
+    protected int tickRate;
+
+    @Expose
+    @OptionalField(defaultValue = "0")
+    @Document(description = "For manipulators that check on tick, the maximum number of ticks to randomly offset the " +
+            "checks by, so that many manipulators with the same tick rate don't all run on the same tick.")
+    protected int tickJitter;
+
+    private TickManager.Handle tickHandle;
+
     @Override
     public void validate(final Need need) throws IllegalArgumentException {
 
@@ -35,6 +58,7 @@ public abstract class BaseManipulator implements IManipulator {
     @Override
     public final void onLoaded(final Need need) {
         parent = need;
+        tagExpressions(need);
         onLoaded();
     }
 
@@ -48,6 +72,87 @@ public abstract class BaseManipulator implements IManipulator {
         parent = null;
     }
 
+    /**
+     * Gets the number of ticks between on-tick checks for this manipulator
+     * @return The tick rate
+     */
+    protected int getTickRate() {
+        return 0 < tickRate ? tickRate : TickManager.INSTANCE.getBucketCount();
+    }
+
+    /**
+     * Registers the action to be called on tick for each player, using this manipulator's tick rate; replaces any
+     * previously requested action
+     * @param action The action to call
+     */
+    protected void requestTickUpdate(final Consumer<PlayerEntity> action) {
+        removeTickUpdate();
+        tickHandle = TickManager.INSTANCE.requestPlayerTickUpdate(action, getTickRate(), tickJitter);
+    }
+
+    /**
+     * Registers the action to be called on tick for each player, using this manipulator's tick rate, along with the
+     * number of ticks that have actually passed since it was last called for that player; replaces any previously
+     * requested action
+     * @param action The action to call
+     */
+    protected void requestElapsedTickUpdate(final ObjIntConsumer<PlayerEntity> action) {
+        removeTickUpdate();
+        tickHandle = TickManager.INSTANCE.requestElapsedPlayerTickUpdate(action, getTickRate(), tickJitter);
+    }
+
+    /**
+     * Registers the action to be called on tick with every player due in the bucket at once, using this manipulator's
+     * tick rate; replaces any previously requested action
+     * @param action The action to call
+     */
+    protected void requestBatchTickUpdate(final TickManager.BatchAction action) {
+        removeTickUpdate();
+        tickHandle = TickManager.INSTANCE.requestBatchPlayerTickUpdate(action, getTickRate(), tickJitter);
+    }
+
+    /**
+     * Registers the action to be called on tick for each player that passes the condition, using this manipulator's
+     * tick rate; the condition may be tested off of the server thread, so should only rely on the snapshot. Replaces
+     * any previously requested action.
+     * @param condition The condition to test
+     * @param action    The action to call
+     */
+    protected void requestConditionalTickUpdate(final Predicate<PlayerSnapshot> condition, final Consumer<PlayerEntity> action) {
+        removeTickUpdate();
+        tickHandle = TickManager.INSTANCE.requestConditionalPlayerTickUpdate(condition, (p, elapsed) -> action.accept(p),
+                getTickRate(), tickJitter);
+    }
+
+    /**
+     * Stops any action registered with {@link BaseManipulator#requestTickUpdate(Consumer)} from being called
+     */
+    protected void removeTickUpdate() {
+        if (tickHandle == null) return;
+        tickHandle.unregister();
+        tickHandle = null;
+    }
+
+    /**
+     * Labels the expressions this manipulator holds with the need they belong to, so that they can be found again from
+     * the profiler; manipulators with expressions should override this to call
+     * {@link BaseManipulator#tagExpression(Need, String, ExpressionContext)} for each of them. It's called when loaded
+     * as a manipulator; manipulators that can also be loaded as triggers or conditions need to call it from there too.
+     * @param need The need this manipulator belongs to
+     */
+    protected void tagExpressions(final Need need) {}
+
+    /**
+     * Labels the expression with the need and manipulator it belongs to
+     * @param need       The need
+     * @param name       The name of the expression within this manipulator
+     * @param expression The expression; ignored if null
+     */
+    protected void tagExpression(@Nullable final Need need, final String name, @Nullable final ExpressionContext expression) {
+        if (need == null || expression == null) return;
+        expression.setOwner(need.getName() + " / " + getClass().getSimpleName() + "." + name);
+    }
+
     private static class ExternalManipulator extends BaseManipulator {
 
     }
@@ -12,6 +12,7 @@ import org.winterblade.minecraft.mods.needs.api.expressions.CountedExpressionCon
 import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 import org.winterblade.minecraft.mods.needs.util.blocks.BlockStatePredicate;
+import org.winterblade.minecraft.mods.needs.util.blocks.CompiledBlockMatcher;
 import org.winterblade.minecraft.mods.needs.util.blocks.IBlockPredicate;
 
 import javax.annotation.Nullable;
@@ -30,6 +31,7 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
     @Document(type = IBlockPredicate.class, description = "A list of blocks to check")
     protected List<IBlockPredicate> blocks = Collections.emptyList();
     protected ITriggerable parentCondition;
+    protected CompiledBlockMatcher matcher;
 
     @Override
     public void validate(final Need need) throws IllegalArgumentException {
@@ -48,6 +50,11 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
         validateCommon();
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         onLoadedCommon();
@@ -56,6 +63,7 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         onLoadedCommon();
@@ -63,6 +71,7 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         onLoadedCommon();
@@ -96,10 +105,7 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
      * @return True if it does, false otherwise
      */
     protected boolean isMatch(final BlockState target) {
-        for (final IBlockPredicate predicate : blocks) {
-            if (predicate.test(target)) return true;
-        }
-        return false;
+        return matcher.test(target);
     }
 
     protected void validateCommon() {
@@ -107,6 +113,7 @@ public abstract class BlockCheckingManipulator extends TooltipManipulator implem
     }
 
     protected void onLoadedCommon() {
+        matcher = new CompiledBlockMatcher(blocks);
         if (amount != null) amount.build();
     }
 }
@@ -56,6 +56,7 @@ public abstract class ConditionalManipulator extends BaseManipulator implements
 
     @Override
     public void onConditionLoaded(final Need parentNeed, @Nullable final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parentCondition = parentCondition;
         triggers.forEach(t -> t.onTriggerLoaded(parentNeed, this));
     }
@@ -52,6 +52,11 @@ public abstract class DamageBasedManipulator extends BaseManipulator implements
         super.validate(need);
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -65,6 +70,7 @@ public abstract class DamageBasedManipulator extends BaseManipulator implements
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         if (amount != null) amount.build();
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
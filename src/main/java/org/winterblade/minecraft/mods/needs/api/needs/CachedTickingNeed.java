@@ -11,17 +11,19 @@ import java.util.Map;
 @Document(description = "A collection of needs that are updated and cached periodically")
 public abstract class CachedTickingNeed extends Need {
     private final Map<String, Double> cache = new HashMap<>();
+    private TickManager.Handle tickHandle;
 
     @Override
     public void onLoaded() {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::onTick);
+        tickHandle = TickManager.INSTANCE.requestPlayerTickUpdate(this::onTick);
     }
 
     @Override
     public void onUnloaded() {
         super.onUnloaded();
         cache.clear();
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        if (tickHandle != null) tickHandle.unregister();
+        tickHandle = null;
     }
 
     private void onTick(final PlayerEntity p) {
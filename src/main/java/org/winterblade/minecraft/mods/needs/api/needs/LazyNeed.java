@@ -127,7 +127,8 @@ public class LazyNeed {
     /**
      * Gets the value for the given player, returning 0 if the need doesn't exist.
      *
-     * This will get the local cached value if not called for a {@link ServerPlayerEntity}
+     * This will get the local cached value if not called for a {@link ServerPlayerEntity}; server values are memoized
+     * for the rest of the tick by {@link NeedValueCache}
      * @param player The player
      * @return The value of the need or 0 if it doesn't exist
      */
@@ -143,7 +144,7 @@ public class LazyNeed {
             return 0;
         }
 
-        return instance.getValue(player);
+        return NeedValueCache.getValue(instance, player);
     }
 
     protected static class Deserializer implements JsonDeserializer<LazyNeed> {
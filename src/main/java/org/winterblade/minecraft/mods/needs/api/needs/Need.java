@@ -201,6 +201,7 @@ public abstract class Need {
 
         // Finally, set the value...
         newValue = setValue(player, newValue, adjust);
+        NeedValueCache.invalidate(this, player);
         if (newValue == current) return newValue; // If we didn't _really_ change, bail
 
         // ... and let our listeners know
@@ -218,6 +219,7 @@ public abstract class Need {
         if (!isValueInitialized(player)) {
             if (MinecraftForge.EVENT_BUS.post(new NeedInitializationEvent.Pre(this, player))) return false;
             initialize(player);
+            NeedValueCache.invalidate(this, player);
             MinecraftForge.EVENT_BUS.post(new NeedInitializationEvent.Post(this, player));
         }
         return true;
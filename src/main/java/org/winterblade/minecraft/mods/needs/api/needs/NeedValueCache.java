@@ -0,0 +1,98 @@
+package org.winterblade.minecraft.mods.needs.api.needs;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraftforge.eventbus.api.EventPriority;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.winterblade.minecraft.mods.needs.api.TickManager;
+import org.winterblade.minecraft.mods.needs.api.events.NeedAdjustmentEvent;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Memoizes need values read by expressions, per player, for the rest of the tick; a value is dropped as soon as the
+ * need is adjusted for that player. Needs that change without going through {@link Need#adjustValue} (such as
+ * vanilla needs) may be up to a tick out of date. This should only be used from the server thread.
+ */
+@SuppressWarnings("WeakerAccess")
+@Mod.EventBusSubscriber
+public final class NeedValueCache {
+    private static final Map<PlayerEntity, NeedValueCache> caches = new MapMaker().weakKeys().makeMap();
+
+    private long tick = -1;
+    private int count;
+    private Need[] needs = new Need[4];
+    private double[] values = new double[4];
+
+    private NeedValueCache() {}
+
+    /**
+     * Gets the value of the need for the player, reading it from the need only once per tick
+     * @param need   The need
+     * @param player The player
+     * @return The value
+     */
+    public static double getValue(final Need need, final PlayerEntity player) {
+        NeedValueCache cache = caches.get(player);
+        if (cache == null) {
+            cache = new NeedValueCache();
+            caches.put(player, cache);
+        }
+
+        return cache.get(need, player);
+    }
+
+    /**
+     * Drops the cached value of the need for the player
+     * @param need   The need
+     * @param player The player
+     */
+    public static void invalidate(final Need need, final PlayerEntity player) {
+        final NeedValueCache cache = caches.get(player);
+        if (cache != null) cache.remove(need);
+    }
+
+    @SubscribeEvent(priority = EventPriority.HIGHEST)
+    public static void onAdjusted(final NeedAdjustmentEvent.Post event) {
+        invalidate(event.getNeed(), event.getPlayer());
+    }
+
+    private double get(final Need need, final PlayerEntity player) {
+        final long currentTick = TickManager.INSTANCE.getCurrentTick();
+        if (tick != currentTick) {
+            Arrays.fill(needs, 0, count, null);
+            tick = currentTick;
+            count = 0;
+        }
+
+        // Players rarely have more than a handful of needs referenced, so a scan beats hashing
+        for (int i = 0; i < count; i++) {
+            if (needs[i] == need) return values[i];
+        }
+
+        final double value = need.getValue(player);
+        if (count == needs.length) {
+            needs = Arrays.copyOf(needs, count * 2);
+            values = Arrays.copyOf(values, count * 2);
+        }
+
+        needs[count] = need;
+        values[count] = value;
+        count++;
+        return value;
+    }
+
+    private void remove(final Need need) {
+        for (int i = 0; i < count; i++) {
+            if (needs[i] != need) continue;
+
+            count--;
+            needs[i] = needs[count];
+            values[i] = values[count];
+            needs[count] = null;
+            return;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
 import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
 import net.minecraftforge.fml.network.PacketDistributor;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
+import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.needs.LazyNeed;
 import org.winterblade.minecraft.mods.needs.api.needs.LocalCachedNeed;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
@@ -64,6 +65,13 @@ public class NeedRegistry extends TypedRegistry<Need> {
     private final Map<String, byte[]> cachedConfigHashes = new HashMap<>();
     private final Map<String, String> cachedConfigs = new HashMap<>();
 
+    /**
+     * Dense indices for need names, so per-player storage can be kept in arrays; a name keeps its index for as long as
+     * the game is running, even if the need is unloaded, so stored values never end up under the wrong need
+     */
+    private final Map<String, Integer> indices = new ConcurrentHashMap<>();
+    private volatile String[] indexedNames = new String[0];
+
     @Override
     public String getName() {
         return "Need";
@@ -174,6 +182,37 @@ public class NeedRegistry extends TypedRegistry<Need> {
                 });
     }
 
+    /**
+     * Gets the storage index for a need name, assigning the next free one if the name hasn't been seen before
+     * @param name The name of the need, exactly as it's stored
+     * @return The index
+     */
+    public int getIndex(final String name) {
+        final Integer index = indices.get(name);
+        return index != null ? index : assignIndex(name);
+    }
+
+    /**
+     * Gets the need name for a storage index
+     * @param index The index, from {@link NeedRegistry#getIndex(String)}
+     * @return The name
+     */
+    public String getIndexedName(final int index) {
+        return indexedNames[index];
+    }
+
+    private synchronized int assignIndex(final String name) {
+        final Integer existing = indices.get(name);
+        if (existing != null) return existing;
+
+        final int index = indexedNames.length;
+        final String[] names = Arrays.copyOf(indexedNames, index + 1);
+        names[index] = name;
+        indexedNames = names;
+        indices.put(name, index);
+        return index;
+    }
+
     /**
      * Registers that a need needs to be synced down from the server to the client.
      *
@@ -360,6 +399,7 @@ public class NeedRegistry extends TypedRegistry<Need> {
                 }
 
                 instances.add(need);
+                getIndex(need.getName());
                 cachedConfigHashes.put(need.getName(), def.getDigest());
                 if (def.getContent() != null && 0 < def.getContent().length()) cachedConfigs.put(need.getName(), def.getContent());
             }
@@ -376,5 +416,6 @@ public class NeedRegistry extends TypedRegistry<Need> {
     public void onServerStopped(final FMLServerStoppedEvent event) {
         localCache.clear(); // This only applies to the local side
         instances.forEach(Need::beginUnload);
+        ExpressionContext.clearCache();
     }
 }
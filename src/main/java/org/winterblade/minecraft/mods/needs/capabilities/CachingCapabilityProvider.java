@@ -0,0 +1,45 @@
+package org.winterblade.minecraft.mods.needs.capabilities;
+
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraftforge.common.capabilities.CapabilityProvider;
+import net.minecraftforge.common.util.INBTSerializable;
+
+/**
+ * A capability provider which hands out the last tag it wrote until its capability changes, so that saving a player
+ * whose capability hasn't changed doesn't rebuild the whole tag every time. The tag that's handed out is shared, so it
+ * mustn't be modified by the caller.
+ * @param <B> The provider's own type
+ */
+public abstract class CachingCapabilityProvider<B extends CapabilityProvider<B>> extends CapabilityProvider<B>
+        implements INBTSerializable<CompoundNBT> {
+    private CompoundNBT lastWritten;
+
+    protected CachingCapabilityProvider(final Class<B> baseClass) {
+        super(baseClass);
+    }
+
+    @Override
+    public CompoundNBT serializeNBT() {
+        if (lastWritten == null || isDirty()) {
+            lastWritten = write();
+            markClean();
+        }
+        return lastWritten;
+    }
+
+    /**
+     * @return True if the capability has changed since it was last written
+     */
+    protected abstract boolean isDirty();
+
+    /**
+     * Marks the capability as unchanged since it was last written
+     */
+    protected abstract void markClean();
+
+    /**
+     * Writes the capability out to a new tag
+     * @return The tag
+     */
+    protected abstract CompoundNBT write();
+}
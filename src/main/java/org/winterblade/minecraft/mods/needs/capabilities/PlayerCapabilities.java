@@ -0,0 +1,119 @@
+package org.winterblade.minecraft.mods.needs.capabilities;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraftforge.common.capabilities.Capability;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import org.winterblade.minecraft.mods.needs.capabilities.customneed.INeedCapability;
+import org.winterblade.minecraft.mods.needs.capabilities.itemuse.IItemUsedCountCapability;
+import org.winterblade.minecraft.mods.needs.capabilities.latch.ILatchedCapability;
+import org.winterblade.minecraft.mods.needs.capabilities.latch.LatchedCapability;
+import org.winterblade.minecraft.mods.needs.manipulators.ItemUsedCountManipulator;
+import org.winterblade.minecraft.mods.needs.needs.CustomNeed;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+/**
+ * Hands out each player's capabilities directly, resolving them through the capability dispatcher only once per
+ * player entity. A player's capabilities are attached when the entity is created and never change after that, so the
+ * cache is only cleared to let go of players that are cloned or log out; the last player looked up is kept to one
+ * side, as the same player is usually asked for several times in a row. Cached entries only hold on to their player
+ * weakly, so that neither the cache's values nor the last lookup keep a player that's gone away alive.
+ */
+@SuppressWarnings("WeakerAccess")
+@Mod.EventBusSubscriber
+public final class PlayerCapabilities {
+    private static final Map<PlayerEntity, PlayerCapabilities> cache = new MapMaker().weakKeys().makeMap();
+    private static volatile PlayerCapabilities last;
+
+    private final WeakReference<PlayerEntity> player;
+    private INeedCapability needs;
+    private ILatchedCapability latched;
+    private IItemUsedCountCapability itemUse;
+
+    private PlayerCapabilities(final PlayerEntity player) {
+        this.player = new WeakReference<>(player);
+    }
+
+    /**
+     * Gets the player's custom need capability
+     * @param player The player
+     * @return The capability, or null if the player doesn't have one
+     */
+    @Nullable
+    public static INeedCapability getNeeds(final PlayerEntity player) {
+        final PlayerCapabilities caps = get(player);
+        if (caps.needs == null) caps.needs = resolve(player, CustomNeed.CAPABILITY);
+        return caps.needs;
+    }
+
+    /**
+     * Gets the player's latched manipulator capability
+     * @param player The player
+     * @return The capability, or null if the player doesn't have one
+     */
+    @Nullable
+    public static ILatchedCapability getLatched(final PlayerEntity player) {
+        final PlayerCapabilities caps = get(player);
+        if (caps.latched == null) caps.latched = resolve(player, LatchedCapability.CAPABILITY);
+        return caps.latched;
+    }
+
+    /**
+     * Gets the player's item use count capability
+     * @param player The player
+     * @return The capability, or null if the player doesn't have one
+     */
+    @Nullable
+    public static IItemUsedCountCapability getItemUse(final PlayerEntity player) {
+        final PlayerCapabilities caps = get(player);
+        if (caps.itemUse == null) caps.itemUse = resolve(player, ItemUsedCountManipulator.CAPABILITY);
+        return caps.itemUse;
+    }
+
+    /**
+     * Forgets the player's capabilities
+     * @param player The player
+     */
+    public static void invalidate(final PlayerEntity player) {
+        cache.remove(player);
+
+        final PlayerCapabilities caps = last;
+        if (caps != null && caps.player.get() == player) last = null;
+    }
+
+    @SubscribeEvent
+    public static void onClone(final PlayerEvent.Clone event) {
+        invalidate(event.getOriginal());
+        invalidate(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onRespawn(final PlayerEvent.PlayerRespawnEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    @SubscribeEvent
+    public static void onLogout(final PlayerEvent.PlayerLoggedOutEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    private static PlayerCapabilities get(final PlayerEntity player) {
+        final PlayerCapabilities lastCaps = last;
+        if (lastCaps != null && lastCaps.player.get() == player) return lastCaps;
+
+        final PlayerCapabilities caps = cache.computeIfAbsent(player, PlayerCapabilities::new);
+        last = caps;
+        return caps;
+    }
+
+    @Nullable
+    private static <T> T resolve(final PlayerEntity player, @Nullable final Capability<T> capability) {
+        // Missing capabilities aren't remembered, in case they're only missing for now
+        return capability != null ? player.getCapability(capability).orElse(null) : null;
+    }
+}
@@ -11,6 +11,22 @@ public interface INeedCapability {
 
     boolean isInitialized(String id);
 
+    /**
+     * Gets the value by the need's storage index, from {@link org.winterblade.minecraft.mods.needs.api.registries.NeedRegistry#getIndex(String)}
+     * @param index The index
+     * @return The value
+     */
+    double getValue(int index);
+
+    void setValue(int index, double value);
+
+    boolean isInitialized(int index);
+
+    /**
+     * Gets a read-only snapshot of every initialized value, by need name; it won't reflect later changes, and can't be
+     * modified (use {@link INeedCapability#setValue(String, double)} instead)
+     * @return The values
+     */
     @Nonnull
     Map<String, Double> getValues();
 
@@ -21,4 +37,10 @@ public interface INeedCapability {
     @Nonnull
     Map<String,Map<String,Double>> getLevelAdjustments();
 
+    /**
+     * Flags the capability as changed, so that it's written out again on the next save; only needed if something
+     * has been changed other than through the setters
+     */
+    void markDirty();
+
 }
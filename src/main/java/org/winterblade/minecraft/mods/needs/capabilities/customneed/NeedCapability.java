@@ -3,48 +3,79 @@ package org.winterblade.minecraft.mods.needs.capabilities.customneed;
 import net.minecraft.nbt.CompoundNBT;
 import net.minecraft.nbt.DoubleNBT;
 import net.minecraft.nbt.INBT;
+import net.minecraft.nbt.ListNBT;
+import net.minecraft.nbt.StringNBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
-import net.minecraftforge.common.capabilities.CapabilityProvider;
-import net.minecraftforge.common.util.INBTSerializable;
+import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.LazyOptional;
 import net.minecraftforge.fml.common.Mod;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
+import org.winterblade.minecraft.mods.needs.api.registries.NeedRegistry;
+import org.winterblade.minecraft.mods.needs.capabilities.CachingCapabilityProvider;
 import org.winterblade.minecraft.mods.needs.needs.CustomNeed;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
 @SuppressWarnings({"unused", "WeakerAccess"})
 @Mod.EventBusSubscriber
 public class NeedCapability implements INeedCapability {
-    protected Map<String, Double> values = new HashMap<>();
+    // Values are stored by the need's index in the registry; names are only used at the NBT boundary
+    protected double[] values = new double[16];
+    protected final BitSet initialized = new BitSet();
     protected Map<String, Map<String, Double>> levelAdjustments = new HashMap<>();
     protected Map<String, Object> extensions = new HashMap<>();
 
+    // Set whenever anything changes, so that saving can skip players whose needs haven't
+    protected boolean dirty = true;
+
     @Override
     public double getValue(final String id) {
-        return values.computeIfAbsent(id, k -> 0d);
+        return getValue(NeedRegistry.INSTANCE.getIndex(id));
     }
 
     @Override
     public void setValue(final String id, final double value) {
-        values.put(id, value);
+        setValue(NeedRegistry.INSTANCE.getIndex(id), value);
     }
 
     @Override
     public boolean isInitialized(final String id) {
-        return values.containsKey(id);
+        return isInitialized(NeedRegistry.INSTANCE.getIndex(id));
+    }
+
+    @Override
+    public double getValue(final int index) {
+        // Reading a value that was never set starts it off at zero
+        if (!initialized.get(index)) setValue(index, 0);
+        return values[index];
+    }
+
+    @Override
+    public void setValue(final int index, final double value) {
+        if (values.length <= index) values = Arrays.copyOf(values, Math.max(index + 1, values.length * 2));
+        if (initialized.get(index) && values[index] == value) return;
+
+        values[index] = value;
+        initialized.set(index);
+        dirty = true;
+    }
+
+    @Override
+    public boolean isInitialized(final int index) {
+        return initialized.get(index);
     }
 
     @Nonnull
     @Override
     public Map<String, Double> getValues() {
-        if (values == null) values = new HashMap<>();
-        return values;
+        final Map<String, Double> output = new HashMap<>();
+        for (int i = initialized.nextSetBit(0); 0 <= i; i = initialized.nextSetBit(i + 1)) {
+            output.put(NeedRegistry.INSTANCE.getIndexedName(i), values[i]);
+        }
+        return Collections.unmodifiableMap(output);
     }
 
     @Override
@@ -52,24 +83,53 @@ public class NeedCapability implements INeedCapability {
         levelAdjustments
             .computeIfAbsent(needName, (kv) -> new HashMap<>())
             .put(levelName, adjustment);
+        dirty = true;
     }
 
     @Override
     public double getLevelAdjustment(final String needName, final String levelName) {
-        return levelAdjustments
-                .computeIfAbsent(needName, (kv) -> new HashMap<>())
-                .computeIfAbsent(needName, (kv) -> 0d);
+        final Map<String, Double> levels = levelAdjustments.get(needName);
+        if (levels == null) return 0;
+
+        final Double adjustment = levels.get(levelName);
+        return adjustment != null ? adjustment : 0;
     }
 
     @Nonnull
     @Override
     public Map<String, Map<String, Double>> getLevelAdjustments() {
+        // This can be changed by the caller
+        dirty = true;
         return levelAdjustments;
     }
 
+    @Override
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Writes the capability as a handful of packed arrays rather than a compound per need and level:
+     * - needs: the names of every need stored; the first values.length of them have values, the rest only adjustments
+     * - values: the raw bits of each value, in the same order as needs
+     * - levelNames: the names of every level with an adjustment
+     * - adjustments: pairs of indices into needs and levels
+     * - adjustmentValues: the raw bits of each adjustment, in the same order
+     * The older layout, with a compound per need, can still be read.
+     */
     public static class Storage implements Capability.IStorage<INeedCapability> {
         public static final Storage INSTANCE = new Storage();
 
+        private static final int FORMAT_VERSION = 2;
+
+        private static final String VERSION = "version";
+        private static final String NEEDS = "needs";
+        private static final String VALUES = "values";
+        private static final String LEVELS_TABLE = "levelNames";
+        private static final String ADJUSTMENTS = "adjustments";
+        private static final String ADJUSTMENT_VALUES = "adjustmentValues";
+
+        // The original layout
         private static final String CURRENT = "current";
         private static final String LEVELS = "levels";
         private static final String LAST_ADJUSTMENT = "lastAdjustment";
@@ -77,29 +137,48 @@ public class NeedCapability implements INeedCapability {
         @Nullable
         @Override
         public CompoundNBT writeNBT(final Capability<INeedCapability> capability, final INeedCapability instance, final Direction side) {
-            final CompoundNBT nbt = new CompoundNBT();
+            final Map<String, Integer> needIds = new LinkedHashMap<>();
+            final Map<String, Integer> levelIds = new LinkedHashMap<>();
 
-            instance.getValues().forEach((needName, currentValue)-> {
-                final CompoundNBT n = new CompoundNBT();
-                n.putDouble(CURRENT, currentValue);
-                nbt.put(needName, n);
-            });
+            final Map<String, Double> currentValues = instance.getValues();
+            final long[] values = new long[currentValues.size()];
+            for (final Map.Entry<String, Double> kv : currentValues.entrySet()) {
+                final int id = needIds.size();
+                needIds.put(kv.getKey(), id);
+                values[id] = Double.doubleToRawLongBits(kv.getValue());
+            }
 
-            final CompoundNBT levelAdjusts = new CompoundNBT();
-            instance.getLevelAdjustments().forEach((needName, levelMap) -> {
-                final CompoundNBT n = getOrDefaultNeed(nbt, needName);
-                final CompoundNBT levels = new CompoundNBT();
-                n.put(LEVELS, levels);
-
-                // Currently don't write any levels whose adjustment is zero:
-                levelMap.entrySet().stream().filter((kv) -> kv.getValue() != 0).collect(Collectors.toList()).forEach((kv) -> {
-                    final CompoundNBT level = new CompoundNBT();
-                    level.putDouble(LAST_ADJUSTMENT, kv.getValue());
-                    levels.put(kv.getKey(), level);
-                });
-                nbt.put(needName, n);
-            });
+            // Currently don't write any levels whose adjustment is zero
+            int count = 0;
+            for (final Map<String, Double> levelMap : instance.getLevelAdjustments().values()) {
+                for (final double adjustment : levelMap.values()) {
+                    if (adjustment != 0) count++;
+                }
+            }
+
+            final int[] adjustments = new int[count * 2];
+            final long[] adjustmentValues = new long[count];
+            int i = 0;
+            for (final Map.Entry<String, Map<String, Double>> need : instance.getLevelAdjustments().entrySet()) {
+                for (final Map.Entry<String, Double> level : need.getValue().entrySet()) {
+                    if (level.getValue() == 0) continue;
 
+                    adjustments[i * 2] = needIds.computeIfAbsent(need.getKey(), (k) -> needIds.size());
+                    adjustments[i * 2 + 1] = levelIds.computeIfAbsent(level.getKey(), (k) -> levelIds.size());
+                    adjustmentValues[i] = Double.doubleToRawLongBits(level.getValue());
+                    i++;
+                }
+            }
+
+            final CompoundNBT nbt = new CompoundNBT();
+            nbt.putInt(VERSION, FORMAT_VERSION);
+            nbt.put(NEEDS, toList(needIds.keySet()));
+            nbt.putLongArray(VALUES, values);
+            if (0 < count) {
+                nbt.put(LEVELS_TABLE, toList(levelIds.keySet()));
+                nbt.putIntArray(ADJUSTMENTS, adjustments);
+                nbt.putLongArray(ADJUSTMENT_VALUES, adjustmentValues);
+            }
             return nbt;
         }
 
@@ -110,13 +189,50 @@ public class NeedCapability implements INeedCapability {
                 return;
             }
 
+            // Needs in the original layout are always compounds, so a need called 'version' can't be mistaken for this
             final CompoundNBT nbtCompound = (CompoundNBT) nbt;
-            final Map<String, Double> currentLevels = instance.getValues();
-            final Map<String, Map<String, Double>> levelAdjustments = instance.getLevelAdjustments();
+            if (!nbtCompound.contains(VERSION, Constants.NBT.TAG_INT)) {
+                readLegacyNBT(instance, nbtCompound);
+                return;
+            }
+
+            final int version = nbtCompound.getInt(VERSION);
+            if (version != FORMAT_VERSION) {
+                NeedsMod.LOGGER.error("Unable to deserialize custom need storage; unknown format version " + version);
+                return;
+            }
+
+            final ListNBT needs = nbtCompound.getList(NEEDS, Constants.NBT.TAG_STRING);
+            final long[] values = nbtCompound.getLongArray(VALUES);
+            for (int i = 0; i < values.length && i < needs.size(); i++) {
+                instance.setValue(needs.getString(i), Double.longBitsToDouble(values[i]));
+            }
+
+            final ListNBT levels = nbtCompound.getList(LEVELS_TABLE, Constants.NBT.TAG_STRING);
+            final int[] adjustments = nbtCompound.getIntArray(ADJUSTMENTS);
+            final long[] adjustmentValues = nbtCompound.getLongArray(ADJUSTMENT_VALUES);
+            for (int i = 0; i < adjustmentValues.length && i * 2 + 1 < adjustments.length; i++) {
+                final int need = adjustments[i * 2];
+                final int level = adjustments[i * 2 + 1];
+                if (needs.size() <= need || levels.size() <= level) continue;
+
+                instance.storeLevelAdjustment(needs.getString(need), levels.getString(level), Double.longBitsToDouble(adjustmentValues[i]));
+            }
+        }
+
+        private static ListNBT toList(final Collection<String> names) {
+            final ListNBT list = new ListNBT();
+            for (final String name : names) {
+                list.add(new StringNBT(name));
+            }
+            return list;
+        }
+
+        private void readLegacyNBT(final INeedCapability instance, final CompoundNBT nbtCompound) {
             nbtCompound.keySet().forEach((k) -> {
                 final CompoundNBT need = getOrDefaultNeed(nbtCompound, k);
 
-                if (need.contains(CURRENT)) currentLevels.put(k, need.getDouble(CURRENT));
+                if (need.contains(CURRENT)) instance.setValue(k, need.getDouble(CURRENT));
 
                 if (!need.contains(LEVELS)) return;
                 final CompoundNBT levels = need.getCompound(LEVELS);
@@ -144,8 +260,8 @@ public class NeedCapability implements INeedCapability {
         }
     }
 
-    public static class Provider extends CapabilityProvider<Provider> implements INBTSerializable<CompoundNBT> {
-        private final INeedCapability theActualBloodyCap = new NeedCapability();
+    public static class Provider extends CachingCapabilityProvider<Provider> {
+        private final NeedCapability theActualBloodyCap = new NeedCapability();
         private final LazyOptional<INeedCapability> capability = LazyOptional.of(() -> theActualBloodyCap);
 
         public Provider() {
@@ -159,7 +275,17 @@ public class NeedCapability implements INeedCapability {
         }
 
         @Override
-        public CompoundNBT serializeNBT() {
+        protected boolean isDirty() {
+            return theActualBloodyCap.dirty;
+        }
+
+        @Override
+        protected void markClean() {
+            theActualBloodyCap.dirty = false;
+        }
+
+        @Override
+        protected CompoundNBT write() {
             return Storage.INSTANCE.writeNBT(CustomNeed.CAPABILITY, theActualBloodyCap, null);
         }
 
@@ -8,4 +8,9 @@ public interface IItemUsedCountCapability {
     Map<String, Map<String, ItemUseStorage>> getStorage();
 
     Map<String, ItemUseStorage> getStorage(String key);
+
+    /**
+     * Flags the capability as changed, so that it's written out again on the next save
+     */
+    void markDirty();
 }
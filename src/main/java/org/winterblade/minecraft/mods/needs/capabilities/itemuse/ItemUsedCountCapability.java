@@ -5,30 +5,41 @@ import net.minecraft.nbt.INBT;
 import net.minecraft.nbt.ListNBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
-import net.minecraftforge.common.capabilities.CapabilityProvider;
-import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.common.util.LazyOptional;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
+import org.winterblade.minecraft.mods.needs.capabilities.CachingCapabilityProvider;
 import org.winterblade.minecraft.mods.needs.manipulators.ItemUsedCountManipulator;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 public class ItemUsedCountCapability implements IItemUsedCountCapability {
     private final Map<String, Map<String, ItemUseStorage>> storage = new HashMap<>();
 
+    // Storage is changed in place by whoever asks for it, so asking for it is treated as changing it
+    protected boolean dirty = true;
+
     @Nonnull
     @Override
     public Map<String, Map<String, ItemUseStorage>> getStorage() {
+        dirty = true;
         return storage;
     }
 
     @Override
     public Map<String, ItemUseStorage> getStorage(final String key) {
-        return storage.computeIfAbsent(key, (k) -> new HashMap<>());
+        dirty = true;
+        // Kept in the order the items were last benefited from, oldest first
+        return storage.computeIfAbsent(key, (k) -> new LinkedHashMap<>());
+    }
+
+    @Override
+    public void markDirty() {
+        dirty = true;
     }
 
     public static class Storage implements Capability.IStorage<IItemUsedCountCapability> {
@@ -74,14 +85,15 @@ public class ItemUsedCountCapability implements IItemUsedCountCapability {
                             item.deserializeNBT((CompoundNBT)v);
                             return item;
                         })
-                        .collect(Collectors.toMap(ItemUseStorage::getKey, (i) -> i))
+                        .sorted()
+                        .collect(Collectors.toMap(ItemUseStorage::getKey, (i) -> i, (a, b) -> b, LinkedHashMap::new))
                 );
             });
         }
     }
 
-    public static class Provider extends CapabilityProvider<Provider> implements INBTSerializable<CompoundNBT> {
-        private final IItemUsedCountCapability instance = new ItemUsedCountCapability();
+    public static class Provider extends CachingCapabilityProvider<Provider> {
+        private final ItemUsedCountCapability instance = new ItemUsedCountCapability();
         private final LazyOptional<IItemUsedCountCapability> capability = LazyOptional.of(() -> instance);
 
         public Provider() {
@@ -95,7 +107,17 @@ public class ItemUsedCountCapability implements IItemUsedCountCapability {
         }
 
         @Override
-        public CompoundNBT serializeNBT() {
+        protected boolean isDirty() {
+            return instance.dirty;
+        }
+
+        @Override
+        protected void markClean() {
+            instance.dirty = false;
+        }
+
+        @Override
+        protected CompoundNBT write() {
             return Storage.INSTANCE.writeNBT(ItemUsedCountManipulator.CAPABILITY, instance, null);
         }
 
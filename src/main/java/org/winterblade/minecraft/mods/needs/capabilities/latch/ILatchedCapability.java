@@ -10,4 +10,9 @@ public interface ILatchedCapability {
 
     @Nonnull
     Map<String, Boolean> getValues();
+
+    /**
+     * Flags the capability as changed, so that it's written out again on the next save
+     */
+    void markDirty();
 }
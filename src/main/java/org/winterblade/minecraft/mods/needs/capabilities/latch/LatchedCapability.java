@@ -5,11 +5,9 @@ import net.minecraft.nbt.INBT;
 import net.minecraft.util.Direction;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityInject;
-import net.minecraftforge.common.capabilities.CapabilityProvider;
-import net.minecraftforge.common.util.INBTSerializable;
 import net.minecraftforge.common.util.LazyOptional;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
-import org.winterblade.minecraft.mods.needs.capabilities.itemuse.IItemUsedCountCapability;
+import org.winterblade.minecraft.mods.needs.capabilities.CachingCapabilityProvider;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -21,9 +19,11 @@ public class LatchedCapability implements ILatchedCapability {
         CAPABILITY = null;
     }
 
-    @CapabilityInject(ILatchedCapability.class)
     private final Map<String, Boolean> values = new HashMap<>();
 
+    // Set whenever anything changes, so that saving can skip players whose latches haven't
+    protected boolean dirty = true;
+
     @Override
     public boolean lastValue(final String key) {
         return values.getOrDefault(key, false);
@@ -31,17 +31,25 @@ public class LatchedCapability implements ILatchedCapability {
 
     @Override
     public void setValue(final String key, final boolean value) {
-        values.put(key, value);
+        final Boolean previous = values.put(key, value);
+        if (previous == null || previous != value) dirty = true;
     }
 
     @Nonnull
     @Override
     public Map<String, Boolean> getValues() {
+        // This can be changed by the caller
+        dirty = true;
         return values;
     }
 
+    @Override
+    public void markDirty() {
+        dirty = true;
+    }
+
     @SuppressWarnings("WeakerAccess")
-    @CapabilityInject(IItemUsedCountCapability.class)
+    @CapabilityInject(ILatchedCapability.class)
     public static Capability<ILatchedCapability> CAPABILITY;
 
     public static class Storage implements Capability.IStorage<ILatchedCapability> {
@@ -67,8 +75,8 @@ public class LatchedCapability implements ILatchedCapability {
         }
     }
 
-    public static class Provider extends CapabilityProvider<Provider> implements INBTSerializable<CompoundNBT> {
-        private final ILatchedCapability instance = new LatchedCapability();
+    public static class Provider extends CachingCapabilityProvider<Provider> {
+        private final LatchedCapability instance = new LatchedCapability();
         private final LazyOptional<ILatchedCapability> capability = LazyOptional.of(() -> instance);
 
         public Provider() {
@@ -82,7 +90,17 @@ public class LatchedCapability implements ILatchedCapability {
         }
 
         @Override
-        public CompoundNBT serializeNBT() {
+        protected boolean isDirty() {
+            return instance.dirty;
+        }
+
+        @Override
+        protected void markClean() {
+            instance.dirty = false;
+        }
+
+        @Override
+        protected CompoundNBT write() {
             return Storage.INSTANCE.writeNBT(LatchedCapability.CAPABILITY, instance, null);
         }
 
@@ -0,0 +1,104 @@
+package org.winterblade.minecraft.mods.needs.commands;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.Commands;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraftforge.fml.event.server.FMLServerStartingEvent;
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.winterblade.minecraft.mods.needs.NeedsMod;
+import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionProfiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The /needs command; currently just used to profile expressions:
+ * - /needs profile start: starts (or restarts) profiling
+ * - /needs profile stop: stops profiling, keeping the results
+ * - /needs profile show [count]: lists the most expensive expressions
+ * - /needs profile dump: writes every result to config/needs/profiles
+ */
+public class NeedsCommand {
+    private static final Path dumpPath = Paths.get(FMLPaths.CONFIGDIR.get().toString(), "needs", "profiles");
+
+    private NeedsCommand() {}
+
+    public static void onServerStarting(final FMLServerStartingEvent event) {
+        event.getCommandDispatcher().register(
+            Commands.literal("needs")
+                .requires((s) -> s.hasPermissionLevel(2))
+                .then(
+                    Commands.literal("profile")
+                        .then(Commands.literal("start").executes(NeedsCommand::start))
+                        .then(Commands.literal("stop").executes(NeedsCommand::stop))
+                        .then(
+                            Commands.literal("show")
+                                .executes((ctx) -> show(ctx, 10))
+                                .then(
+                                    Commands.argument("count", IntegerArgumentType.integer(1))
+                                        .executes((ctx) -> show(ctx, IntegerArgumentType.getInteger(ctx, "count")))
+                                )
+                        )
+                        .then(Commands.literal("dump").executes(NeedsCommand::dump))
+                )
+        );
+    }
+
+    private static int start(final CommandContext<CommandSource> ctx) {
+        ExpressionProfiler.start();
+        ctx.getSource().sendFeedback(new StringTextComponent("Started profiling expressions."), true);
+        if (!ExpressionProfiler.isTrackingAllocations()) {
+            ctx.getSource().sendFeedback(new StringTextComponent("This JVM can't report allocations; they won't be tracked."), false);
+        }
+        return 1;
+    }
+
+    private static int stop(final CommandContext<CommandSource> ctx) {
+        ExpressionProfiler.stop();
+        ctx.getSource().sendFeedback(new StringTextComponent("Stopped profiling expressions."), true);
+        return 1;
+    }
+
+    private static int show(final CommandContext<CommandSource> ctx, final int count) {
+        final List<ExpressionProfiler.Result> results = ExpressionProfiler.getResults();
+        if (results.isEmpty()) {
+            ctx.getSource().sendFeedback(new StringTextComponent("No expressions have been profiled yet."), false);
+            return 0;
+        }
+
+        for (final ExpressionProfiler.Result result : results.subList(0, Math.min(count, results.size()))) {
+            ctx.getSource().sendFeedback(new StringTextComponent(String.format(
+                "%s: %.2fms over %d calls (avg %.2fus, p99 %.2fus, %.0f B/call) - %s",
+                result.owner,
+                result.totalMs,
+                result.count,
+                result.averageUs,
+                result.p99Us,
+                result.bytesPerEvaluation,
+                result.expression
+            )), false);
+        }
+        return results.size();
+    }
+
+    private static int dump(final CommandContext<CommandSource> ctx) {
+        final Path file = dumpPath.resolve("expressions-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+
+        try {
+            ExpressionProfiler.dump(file);
+        } catch (final IOException e) {
+            NeedsMod.LOGGER.error("Unable to write expression profile to " + file, e);
+            ctx.getSource().sendErrorMessage(new StringTextComponent("Unable to write the profile: " + e.getMessage()));
+            return 0;
+        }
+
+        ctx.getSource().sendFeedback(new StringTextComponent("Wrote expression profile to " + file), true);
+        return 1;
+    }
+}
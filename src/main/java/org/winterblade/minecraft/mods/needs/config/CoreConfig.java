@@ -30,6 +30,10 @@ public class CoreConfig {
 
     public static class Common {
         public final IntValue tickBuckets;
+        public final EnumValue<TickBalancing> tickBalancing;
+        public final DoubleValue tickBudget;
+        public final BooleanValue parallelConditions;
+        public final IntValue parallelThreshold;
 
         public Common(final Builder builder) {
             builder.comment("Common configuration settings")
@@ -45,6 +49,40 @@ public class CoreConfig {
                     .worldRestart() // Assuming this means game restart? Maybe? IDFK. What's documentation?
                     .defineInRange("tickBuckets", 5, 1, 100);
 
+            tickBalancing = builder
+                    .comment(
+                        "How players should be spread across the tick buckets. COUNT keeps the same number of players " +
+                        "in each bucket; COST measures how long each player takes to update and keeps the total time " +
+                        "spent in each bucket even. Valid options: [" +
+                        Arrays.stream(TickBalancing.values()).map(Enum::name).collect(Collectors.joining(", ")) +
+                        "]"
+                    )
+                    .translation(NeedsMod.MODID + ".configgui.tickBalancing")
+                    .defineEnum("tickBalancing", TickBalancing.COUNT);
+
+            tickBudget = builder
+                    .comment(
+                        "The number of milliseconds each server tick may spend updating needs; any players left over " +
+                        "once the budget is used up will be updated on the following tick instead, and time based " +
+                        "manipulators will account for the delay. Set to 0 to disable the budget."
+                    )
+                    .translation(NeedsMod.MODID + ".configgui.tickBudget")
+                    .defineInRange("tickBudget", 0.0, 0.0, 50.0);
+
+            parallelConditions = builder
+                    .comment(
+                        "If enabled, conditions which only depend on the player's surroundings (such as biome and " +
+                        "dimension checks) will be tested across multiple threads for large buckets of players; the " +
+                        "resulting changes to needs are still applied on the server thread."
+                    )
+                    .translation(NeedsMod.MODID + ".configgui.parallelConditions")
+                    .define("parallelConditions", false);
+
+            parallelThreshold = builder
+                    .comment("The minimum number of players in a bucket before conditions will be tested in parallel.")
+                    .translation(NeedsMod.MODID + ".configgui.parallelThreshold")
+                    .defineInRange("parallelThreshold", 16, 1, 1000);
+
             builder.pop();
         }
     }
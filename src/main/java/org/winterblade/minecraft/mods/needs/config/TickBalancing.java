@@ -0,0 +1,13 @@
+package org.winterblade.minecraft.mods.needs.config;
+
+public enum TickBalancing {
+    /**
+     * Keep the same number of players in every tick bucket
+     */
+    COUNT,
+
+    /**
+     * Keep the measured time spent on the players in every tick bucket even
+     */
+    COST
+}
@@ -6,6 +6,7 @@ import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContex
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 import java.util.TreeMap;
 
 @JsonAdapter(ExpressionContext.Deserializer.class)
@@ -19,9 +20,25 @@ public class AndConditionalExpressionContext extends NeedExpressionContext {
         docs.put(SOURCE, "The amount from the source trigger, if any.");
     }
 
+    private int sourceSlot = -1;
+
     public AndConditionalExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        sourceSlot = getSlot(SOURCE);
+    }
+
+    /**
+     * Sets the amount from the source trigger, to be calculated only if the next evaluation reads it
+     * @param value The supplier for the value
+     */
+    public void setSource(final DoubleSupplier value) {
+        setLazy(sourceSlot, value);
+    }
+
     @Override
     public List<String> getElements() {
         elements.add(SOURCE);
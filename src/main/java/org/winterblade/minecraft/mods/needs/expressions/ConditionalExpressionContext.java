@@ -7,6 +7,7 @@ import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContex
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 @JsonAdapter(ExpressionContext.Deserializer.class)
 public class ConditionalExpressionContext extends NeedExpressionContext {
@@ -17,9 +18,29 @@ public class ConditionalExpressionContext extends NeedExpressionContext {
         docs.put(MATCHED_VALUE, "The amount from the matched condition, if any.");
     }
 
+    private int matchedSlot = -1;
+
     public ConditionalExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        matchedSlot = getSlot(MATCHED_VALUE);
+    }
+
+    public void setMatchedValue(final double value) {
+        set(matchedSlot, value);
+    }
+
+    /**
+     * Sets the matched value, to be calculated only if the next evaluation reads it
+     * @param value The supplier for the value
+     */
+    public void setMatchedValue(final DoubleSupplier value) {
+        setLazy(matchedSlot, value);
+    }
+
     @Override
     public List<String> getElements() {
         elements.add(MATCHED_VALUE);
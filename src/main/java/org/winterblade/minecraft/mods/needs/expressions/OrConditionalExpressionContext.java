@@ -6,6 +6,7 @@ import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.DoubleSupplier;
 
 @JsonAdapter(ExpressionContext.Deserializer.class)
 public class OrConditionalExpressionContext extends ConditionalExpressionContext {
@@ -16,9 +17,25 @@ public class OrConditionalExpressionContext extends ConditionalExpressionContext
         docs.put(SOURCE, "The amount from the source trigger, if any.");
     }
 
+    private int sourceSlot = -1;
+
     public OrConditionalExpressionContext() {
     }
 
+    @Override
+    protected void resolveSlots() {
+        super.resolveSlots();
+        sourceSlot = getSlot(SOURCE);
+    }
+
+    /**
+     * Sets the amount from the source trigger, to be calculated only if the next evaluation reads it
+     * @param value The supplier for the value
+     */
+    public void setSource(final DoubleSupplier value) {
+        setLazy(sourceSlot, value);
+    }
+
     @Override
     public List<String> getElements() {
         elements.add(SOURCE);
@@ -4,7 +4,6 @@ import com.google.common.collect.ImmutableList;
 import com.google.gson.annotations.Expose;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.ResourceLocation;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.biome.Biome;
 import net.minecraftforge.common.BiomeManager;
 import net.minecraftforge.registries.RegistryManager;
@@ -12,7 +11,8 @@ import org.winterblade.minecraft.mods.needs.NeedsMod;
 import org.winterblade.minecraft.mods.needs.api.ICondition;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
+import org.winterblade.minecraft.mods.needs.api.PlayerSnapshot;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
@@ -20,6 +20,7 @@ import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("WeakerAccess")
@@ -41,8 +42,9 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
     protected List<String> biomeTypes = Collections.emptyList();
 
     protected List<BiomeManager.BiomeType> types = Collections.emptyList();
-    protected final Map<Biome, Boolean> biomeMap = new HashMap<>();
-    protected final Map<Biome, Boolean> biomeTypeMap = new HashMap<>();
+    // These may be filled from multiple threads when conditions are tested in parallel
+    protected final Map<Biome, Boolean> biomeMap = new ConcurrentHashMap<>();
+    protected final Map<Biome, Boolean> biomeTypeMap = new ConcurrentHashMap<>();
 
     protected boolean trackTypes = false;
     protected boolean trackBiomes = false;
@@ -54,17 +56,22 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
         validateCommon();
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
         loadCommon();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::tickNeed);
+        requestConditionalTickUpdate(this::test, this::tickNeed);
     }
 
     @Override
     public void onUnloaded() {
         super.onUnloaded();
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
         types = Collections.emptyList();
     }
 
@@ -75,6 +82,7 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         loadCommon();
@@ -94,8 +102,24 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
 
     @Override
     public boolean test(final PlayerEntity player) {
-        final Biome biome = player.world.getBiome(new BlockPos(player));
+        return test(WorldQueryContext.get(player).getBiome());
+    }
+
+    /**
+     * Tests the biome from the snapshot; safe to call off of the server thread
+     * @param snapshot The snapshot
+     * @return True if the player's biome matches
+     */
+    protected boolean test(final PlayerSnapshot snapshot) {
+        return test(snapshot.getBiome());
+    }
 
+    /**
+     * Tests if the biome matches either the listed biomes or biome types
+     * @param biome The biome
+     * @return True if it matches
+     */
+    protected boolean test(final Biome biome) {
         //noinspection ConstantConditions - I don't believe you.
         if (biome == null) return false;
 
@@ -119,15 +143,16 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         loadCommon();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::tickTrigger);
+        requestConditionalTickUpdate(this::test, this::tickTrigger);
     }
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
         types = Collections.emptyList();
     }
 
@@ -168,12 +193,10 @@ public class BiomeManipulator extends BaseManipulator implements ICondition, ITr
     }
 
     private void tickNeed(final PlayerEntity player) {
-        if (!test(player)) return;
         parent.adjustValue(player, getAmount(player), this);
     }
 
     private void tickTrigger(final PlayerEntity player) {
-        if (!test(player)) return;
         parentCondition.trigger(player, this);
     }
 }
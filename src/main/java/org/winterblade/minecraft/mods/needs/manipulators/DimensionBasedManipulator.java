@@ -5,7 +5,8 @@ import net.minecraft.entity.player.PlayerEntity;
 import org.winterblade.minecraft.mods.needs.api.ICondition;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
+import org.winterblade.minecraft.mods.needs.api.PlayerSnapshot;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
@@ -35,14 +36,16 @@ public class DimensionBasedManipulator extends BaseManipulator implements ICondi
         validate();
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
         amount.build();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, (player) -> {
-            if (!test(player)) return;
-            parent.adjustValue(player, get(player), this);
-        });
+        requestConditionalTickUpdate(this::test, (player) -> parent.adjustValue(player, get(player), this));
     }
 
     @Override
@@ -58,6 +61,7 @@ public class DimensionBasedManipulator extends BaseManipulator implements ICondi
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
     }
 
@@ -68,7 +72,16 @@ public class DimensionBasedManipulator extends BaseManipulator implements ICondi
 
     @Override
     public boolean test(final PlayerEntity player) {
-        return dimensions.contains(player.world.getDimension().getType().getId());
+        return dimensions.contains(WorldQueryContext.get(player).getDimension());
+    }
+
+    /**
+     * Tests the dimension from the snapshot; safe to call off of the server thread
+     * @param snapshot The snapshot
+     * @return True if the player is in one of the dimensions
+     */
+    private boolean test(final PlayerSnapshot snapshot) {
+        return dimensions.contains(snapshot.getDimension());
     }
 
     @Override
@@ -78,17 +91,15 @@ public class DimensionBasedManipulator extends BaseManipulator implements ICondi
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         if (amount != null) amount.build();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, (player) -> {
-            if (!test(player)) return;
-            parentCondition.trigger(player, this);
-        });
+        requestConditionalTickUpdate(this::test, (player) -> parentCondition.trigger(player, this));
     }
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
     }
 
     private void validate() throws IllegalArgumentException {
@@ -7,7 +7,6 @@ import net.minecraft.item.ItemStack;
 import org.winterblade.minecraft.mods.needs.api.ICondition;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.CountedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
@@ -53,10 +52,15 @@ public class HoldingManipulator extends TooltipManipulator implements ICondition
     }
 
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         amount.build();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asManipulator);
+        requestTickUpdate(this::asManipulator);
         super.onLoaded();
 
         final String amountType = amount.isConstant() || !amount.isRequired(CountedExpressionContext.COUNT) ? "" : ", Per Item";
@@ -85,6 +89,7 @@ public class HoldingManipulator extends TooltipManipulator implements ICondition
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         if (amount != null) amount.build();
@@ -94,9 +99,9 @@ public class HoldingManipulator extends TooltipManipulator implements ICondition
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return 0;
 
-        amount.setIfRequired(CountedExpressionContext.COUNT, () -> (double)lastCount);
+        amount.setCount(lastCount);
         amount.setCurrentNeedValue(parent, player);
-        return amount.apply(player);
+        return amount.applyAsDouble(player);
     }
 
     @Override
@@ -139,15 +144,16 @@ public class HoldingManipulator extends TooltipManipulator implements ICondition
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asTrigger);
+        requestTickUpdate(this::asTrigger);
         if (amount != null) amount.build();
     }
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
     }
 
     @Nullable
@@ -13,6 +13,8 @@ import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
+import org.winterblade.minecraft.mods.needs.api.needs.Need;
+import org.winterblade.minecraft.mods.needs.capabilities.PlayerCapabilities;
 import org.winterblade.minecraft.mods.needs.capabilities.itemuse.IItemUsedCountCapability;
 import org.winterblade.minecraft.mods.needs.capabilities.itemuse.ItemUseStorage;
 import org.winterblade.minecraft.mods.needs.capabilities.itemuse.ItemUsedCountCapability;
@@ -21,16 +23,12 @@ import org.winterblade.minecraft.mods.needs.expressions.FoodExpressionContext;
 import org.winterblade.minecraft.mods.needs.util.items.FoodItemValueDeserializer;
 
 import java.lang.ref.WeakReference;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Document(description = "A version of Item Used that limits the number of times the player can benefit from the effect per item")
 public class ItemUsedCountManipulator extends ItemUsedManipulator {
@@ -73,6 +71,12 @@ public class ItemUsedCountManipulator extends ItemUsedManipulator {
     @OptionalField(defaultValue = "No limit(ish)")
     protected NeedExpressionContext numberStored = ExpressionContext.makeConstant(new NeedExpressionContext(), Integer.MAX_VALUE);
 
+    @Expose
+    @Document(description = "The number of ticks after the player last benefited from an item before it's forgotten, " +
+            "letting them benefit from it again; 20 ticks is one second, 24000 is one Minecraft day.")
+    @OptionalField(defaultValue = "Never forgotten")
+    protected long maxAge = 0;
+
     @Expose
     @Document(description = "Should damage values be treated as separate items?")
     @OptionalField(defaultValue = "False")
@@ -81,6 +85,13 @@ public class ItemUsedCountManipulator extends ItemUsedManipulator {
     private String storageKey;
     private boolean checkNumberStored;
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        super.tagExpressions(need);
+        tagExpression(need, "uses", uses);
+        tagExpression(need, "numberStored", numberStored);
+    }
+
     @Override
     public void asCommon(final LivingEntityUseItemEvent.Finish evt, final Consumer<PlayerEntity> callback) {
         if (evt.getEntity().world.isRemote || !(evt.getEntityLiving() instanceof PlayerEntity)) return;
@@ -97,14 +108,22 @@ public class ItemUsedCountManipulator extends ItemUsedManipulator {
             if (lastMatch == null) return;
 
             // Get a bunch of stuff that we're going to need to unravel this mess
+            final long now = player.world.getGameTime();
             final String key = ItemUseStorage.getKeyFrom(lastItem, trackDamage);
-            final IItemUsedCountCapability cap = player.getCapability(CAPABILITY).orElse(new ItemUsedCountCapability());
+            final IItemUsedCountCapability playerCap = PlayerCapabilities.getItemUse(player);
+            final IItemUsedCountCapability cap = playerCap != null ? playerCap : new ItemUsedCountCapability();
             final Map<String, ItemUseStorage> storage = cap.getStorage(storageKey);
 
+            // Storage is kept in the order items were last benefited from, oldest first, so anything that's too old
+            // is at the front
+            if (0 < maxAge) {
+                final Iterator<ItemUseStorage> it = storage.values().iterator();
+                while (it.hasNext() && it.next().getLastBenefitTick() < now - maxAge) it.remove();
+            }
+
             // Check if we had one, otherwise create it
             ItemUseStorage itemStore = storage.get(key);
-            final boolean existed = itemStore != null;
-            if (!existed) {
+            if (itemStore == null) {
                 itemStore = new ItemUseStorage();
                 itemStore.setKey(key);
             }
@@ -114,101 +133,59 @@ public class ItemUsedCountManipulator extends ItemUsedManipulator {
             final double maxUse = Math.floor(uses.apply(player));
             if (maxUse <= 0) return;
 
-            if (!checkNumberStored) {
-                // If we're over the limit:
-                if (maxUse <= itemStore.getCount()) return;
+            // If we're over the limit:
+            if (maxUse <= itemStore.getCount()) return;
 
+            if (!checkNumberStored) {
                 // Let's get out of here.
-                if (!existed) storage.put(key, itemStore);
+                benefit(storage, itemStore, now);
                 prepHandle(player, itemStore, callback);
                 return;
             }
 
             // Now get into the larger pain...
             numberStored.setCurrentNeedValue(parent, player);
-            final double count = numberStored.apply(player);
+            final double count = Math.floor(numberStored.apply(player));
 
             // If it's an expression that uses need, it's possible, and easier...
             if (count < 1) {
                 if (!storage.isEmpty()) storage.clear();
-                if (maxUse <= itemStore.getCount()) return;
-                prepHandle(player, itemStore, callback);
-                return;
-            }
-
-            // If the storage is empty, that means the item didn't exist
-            // and we have at least one item of space.
-            if (storage.isEmpty()) {
-                if (maxUse <= itemStore.getCount()) return;
-                storage.put(key, itemStore);
-                prepHandle(player, itemStore, callback);
-                return;
-            }
-
-            // If we're already in the list, don't worry about it.
-            if (existed && storage.size() < count) {
-                if (maxUse <= itemStore.getCount()) return;
-                prepHandle(player, itemStore, callback);
-                return;
-            }
-
-            // If we still have room for one more
-            if (!existed && storage.size() < count - 1) {
-                if (maxUse <= itemStore.getCount()) return;
-                storage.put(key, itemStore);
                 prepHandle(player, itemStore, callback);
                 return;
             }
 
-            // This will pop it to the front
-            itemStore.setLastBenefitTick(player.world.getGameTime());
-
-            // Build up our stream...
-            Stream<ItemUseStorage> stream = storage
-                .values()
-                .stream()
-                .sorted(Comparator.comparing(ItemUseStorage::getLastBenefitTick).reversed())
-                .limit((long) Math.floor(count));
-
-            final AtomicBoolean inReducedSet = new AtomicBoolean();
-            if (existed) {
-                final ItemUseStorage dawnOfTheFinalStore = itemStore;
-                stream = stream.peek((i) -> inReducedSet.set(i.equals(dawnOfTheFinalStore)));
-            } else {
-                inReducedSet.set(false);
-            }
-
-            final LinkedList<ItemUseStorage> reducedList = stream.collect(Collectors.toCollection(LinkedList::new));
-
-            if (!inReducedSet.get()) {
-                // If we're going to add it, we need to trim off the oldest element
-                reducedList.pollLast();
-                reducedList.addFirst(itemStore);
-
-                // Reset its count, and handle it.
-                itemStore.setCount(0);
-                prepHandle(player, itemStore, callback);
-            } else if (itemStore.getCount() < maxUse) {
-                // Otherwise, if we still have a use, use it here
-                prepHandle(player, itemStore, callback);
+            // This will pop it to the back, as the most recent, then drop the least recent until we're within the limit
+            benefit(storage, itemStore, now);
+            final Iterator<ItemUseStorage> it = storage.values().iterator();
+            while (count < storage.size() && it.hasNext()) {
+                it.next();
+                it.remove();
             }
 
-            // Reduce the list...
-            storage.clear();
-            reducedList.forEach((v) -> storage.put(v.getKey(), v));
+            prepHandle(player, itemStore, callback);
         });
     }
 
+    /**
+     * Moves the item to the end of the storage, as the one most recently benefited from
+     * @param storage   The storage
+     * @param itemStore The item
+     * @param now       The current game time
+     */
+    private static void benefit(final Map<String, ItemUseStorage> storage, final ItemUseStorage itemStore, final long now) {
+        storage.remove(itemStore.getKey());
+        storage.put(itemStore.getKey(), itemStore);
+        itemStore.setLastBenefitTick(now);
+    }
+
     @Override
     protected void setupExpression(final Supplier<Double> currentValue, final PlayerEntity player, final ItemStack item, final ExpressionContext expr) {
         super.setupExpression(currentValue, player, item, expr);
         if (!expr.isRequired(CountedFoodExpressionContext.COUNT)) return;
 
         final String key = ItemUseStorage.getKeyFrom(lastItem, trackDamage);
-        final IItemUsedCountCapability cap = player.getCapability(CAPABILITY).orElse(new ItemUsedCountCapability());
-        final Map<String, ItemUseStorage> storage = cap.getStorage(storageKey);
-
-        final ItemUseStorage itemStore = storage.get(key);
+        final IItemUsedCountCapability cap = PlayerCapabilities.getItemUse(player);
+        final ItemUseStorage itemStore = cap != null ? cap.getStorage(storageKey).get(key) : null;
         expr.setIfRequired(CountedFoodExpressionContext.COUNT, itemStore != null ? (() -> (double) itemStore.getCount()) : (() -> 0d));
     }
 
@@ -218,13 +195,14 @@ public class ItemUsedCountManipulator extends ItemUsedManipulator {
         if (uses.isConstant() && uses.apply(null) <= 0) throw new IllegalArgumentException("Uses must be a positive whole number if it's constant.");
         if (numberStored.isConstant() && numberStored.apply(null) <= 0) throw new IllegalArgumentException("Number stored must be a positive whole number if it's constant.");
         if (id == null || id.isEmpty()) throw new IllegalArgumentException("ID must be provided.");
+        if (maxAge < 0) throw new IllegalArgumentException("Max age must not be negative.");
     }
 
     @Override
     protected void onLoadedCommon() {
         super.onLoadedCommon();
         storageKey = "itemusedcount_" + StringUtils.lowerCase(id).replaceAll("[^a-z 0-9]", "").replaceAll(" ", "_");
-        checkNumberStored = numberStored.isConstant() && numberStored.apply(null) < Integer.MAX_VALUE;
+        checkNumberStored = !numberStored.isConstant() || numberStored.apply(null) < Integer.MAX_VALUE;
     }
 
     @Override
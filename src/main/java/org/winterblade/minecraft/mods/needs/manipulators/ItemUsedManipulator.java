@@ -54,6 +54,17 @@ public class ItemUsedManipulator extends TooltipManipulator implements ITrigger
         super.validate(need);
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        // Go through the getters, as subclasses may deserialize these into their own fields
+        tagExpression(need, "defaultAmount", getDefaultAmount());
+
+        int i = 0;
+        for (final ExpressionContext item : getItems().values()) {
+            tagExpression(need, "items[" + i++ + "]", item);
+        }
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -74,6 +85,7 @@ public class ItemUsedManipulator extends TooltipManipulator implements ITrigger
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         onLoadedCommon();
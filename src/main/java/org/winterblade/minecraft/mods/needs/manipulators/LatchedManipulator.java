@@ -5,14 +5,12 @@ import net.minecraft.entity.player.PlayerEntity;
 import org.winterblade.minecraft.mods.needs.api.ICondition;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
 import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
+import org.winterblade.minecraft.mods.needs.capabilities.PlayerCapabilities;
 import org.winterblade.minecraft.mods.needs.capabilities.latch.ILatchedCapability;
-import org.winterblade.minecraft.mods.needs.capabilities.latch.LatchedCapability;
-import org.winterblade.minecraft.mods.needs.expressions.ConditionalExpressionContext;
 import org.winterblade.minecraft.mods.needs.expressions.OrConditionalExpressionContext;
 
 @Document(description = "Creates a latched condition which only passes the first time a condition is met, and will only " +
@@ -65,28 +63,37 @@ public class LatchedManipulator extends BaseManipulator implements ICondition, I
         validateCommon();
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+        tagExpression(need, "unlatchAmount", unlatchAmount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
         loadCommon();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asManipulator);
+        requestTickUpdate(this::asManipulator);
     }
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         loadCommon();
     }
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         loadCommon();
         this.parentCondition = parentCondition;
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asTrigger);
+        requestTickUpdate(this::asTrigger);
     }
 
     @Override
     public void onUnloaded() {
         super.onUnloaded();
+        removeTickUpdate();
         condition.onConditionUnloaded();
     }
 
@@ -97,6 +104,7 @@ public class LatchedManipulator extends BaseManipulator implements ICondition, I
 
     @Override
     public void onTriggerUnloaded() {
+        removeTickUpdate();
         condition.onConditionUnloaded();
     }
 
@@ -113,18 +121,16 @@ public class LatchedManipulator extends BaseManipulator implements ICondition, I
 
     @Override
     public boolean test(final PlayerEntity playerEntity) {
-        // Get our capability
-        final ILatchedCapability theCap = playerEntity
-                .getCapability(LatchedCapability.CAPABILITY, null)
-                .orElseGet(LatchedCapability::new);
+        // Get our capability; without one, there's nowhere to remember the last result, so it's always unlatched
+        final ILatchedCapability theCap = PlayerCapabilities.getLatched(playerEntity);
 
         final boolean conditionResult = condition.test(playerEntity);
-        final boolean previousResult = theCap.lastValue(id);
+        final boolean previousResult = theCap != null && theCap.lastValue(id);
 
         if (conditionResult == previousResult) return false;
 
         isUnlatch = previousResult;
-        theCap.setValue(id, conditionResult);
+        if (theCap != null) theCap.setValue(id, conditionResult);
         return true;
     }
 
@@ -151,10 +157,10 @@ public class LatchedManipulator extends BaseManipulator implements ICondition, I
         trigger(player, this);
     }
 
-    protected double getAmount(final PlayerEntity player, final ConditionalExpressionContext expr) {
+    protected double getAmount(final PlayerEntity player, final OrConditionalExpressionContext expr) {
         expr.setCurrentNeedValue(parent, player);
-        expr.setIfRequired(ConditionalExpressionContext.MATCHED_VALUE, () -> condition.getAmount(player));
-        expr.setIfRequired(OrConditionalExpressionContext.SOURCE, () -> lastSource != null ? lastSource.getAmount(player) : 0);
+        expr.setMatchedValue(() -> condition.getAmount(player));
+        expr.setSource(() -> lastSource != null ? lastSource.getAmount(player) : 0);
         return expr.apply(player);
     }
 
@@ -53,6 +53,13 @@ public class LinkedNeedManipulator extends BaseManipulator {
         super.validate(need);
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        for (int i = 0; i < chain.size(); i++) {
+            tagExpression(need, "chain[" + i + "].amount", chain.get(i).amount);
+        }
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -148,14 +155,11 @@ public class LinkedNeedManipulator extends BaseManipulator {
 
             // Set it all up...
             final double p2 = lh.instance.getValue(player);
-            lh.amount
-                    .setIfRequired(NeedExpressionContext.CURRENT_NEED_VALUE, () -> p2)
-                    .setIfRequired(OtherNeedChangedExpressionContext.CHANGE, () -> diff)
-                    .setIfRequired(OtherNeedChangedExpressionContext.OTHER, () -> current)
-                    .setIfRequired(OtherNeedChangedExpressionContext.PREVIOUS, () -> previous);
+            lh.amount.setCurrentNeedValue(p2);
+            lh.amount.setOtherNeedChange(current, previous, diff);
 
             // Do the adjustment and continue the chain
-            final double c2 = lh.instance.adjustValue(player, lh.amount.apply(player), tangle);
+            final double c2 = lh.instance.adjustValue(player, lh.amount.applyAsDouble(player), tangle);
             linker(lh.instance, c2, p2, player, unravels.get(lh.instance), onceEver ? visited : new HashSet<>(visited), sb2, tangle);
         }
     }
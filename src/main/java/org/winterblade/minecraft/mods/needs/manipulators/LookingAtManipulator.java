@@ -3,12 +3,8 @@ package org.winterblade.minecraft.mods.needs.manipulators;
 import com.google.gson.annotations.Expose;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.math.BlockRayTraceResult;
-import net.minecraft.util.math.RayTraceContext;
-import net.minecraft.util.math.RayTraceResult;
-import net.minecraft.util.math.Vec3d;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BlockCheckingManipulator;
 import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
@@ -23,13 +19,13 @@ public class LookingAtManipulator extends BlockCheckingManipulator {
 
     @Override
     public void onLoaded() {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::handleManipulator);
+        requestTickUpdate(this::handleManipulator);
         super.onLoaded();
     }
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::handleTrigger);
+        requestTickUpdate(this::handleTrigger);
         super.onTriggerLoaded(parentNeed, parentCondition);
     }
 
@@ -41,7 +37,7 @@ public class LookingAtManipulator extends BlockCheckingManipulator {
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
     }
 
     @Override
@@ -53,27 +49,8 @@ public class LookingAtManipulator extends BlockCheckingManipulator {
 
     @Override
     public boolean test(final PlayerEntity player) {
-        // Get start and end points:
-        final Vec3d startingPosition = new Vec3d(player.posX, player.posY + player.getEyeHeight(), player.posZ);
-        final Vec3d endingPosition = startingPosition.add(player.getLookVec().scale(distance));
-
-        final RayTraceContext ctx = new RayTraceContext(
-                startingPosition,
-                endingPosition,
-                RayTraceContext.BlockMode.OUTLINE, // Going to assume outline is faster than collision
-                RayTraceContext.FluidMode.NONE, // We're going to ignore fluids for now...
-                player
-        );
-
-        // We'd probably have to trace ourselves to detect if the player is looking at an entity on the server side
-        // See ProjectileHelper before going that route.
-
-        final BlockRayTraceResult result = player.world.rayTraceBlocks(ctx);
-        //noinspection ConstantConditions - no, you probably aren't.
-        if (result == null || result.getType() == RayTraceResult.Type.MISS) return false;
-
-        final BlockState target = player.world.getBlockState(result.getPos());
-        return isMatch(target);
+        final BlockState target = WorldQueryContext.get(player).getLookTarget(distance);
+        return target != null && isMatch(target);
     }
 
     @Override
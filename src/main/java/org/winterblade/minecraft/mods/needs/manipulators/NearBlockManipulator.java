@@ -3,15 +3,15 @@ package org.winterblade.minecraft.mods.needs.manipulators;
 import com.google.gson.annotations.Expose;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
-import net.minecraft.block.Blocks;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.registries.IForgeRegistry;
 import net.minecraftforge.registries.RegistryManager;
 import org.winterblade.minecraft.mods.needs.NeedsMod;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.CountedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
@@ -19,13 +19,16 @@ import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContex
 import org.winterblade.minecraft.mods.needs.api.manipulators.BlockCheckingManipulator;
 import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
+import org.winterblade.minecraft.mods.needs.util.blocks.BlockScanner;
 import org.winterblade.minecraft.mods.needs.util.blocks.BlockStatePredicate;
 import org.winterblade.minecraft.mods.needs.util.blocks.IBlockPredicate;
+import org.winterblade.minecraft.mods.needs.util.blocks.IncrementalBlockCounter;
 import org.winterblade.minecraft.mods.needs.util.blocks.TagBlockPredicate;
 
 import javax.annotation.Nonnull;
 import java.util.Iterator;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Document(description = "Checks the immediate surroundings of the player for the given block(s); will fire every " +
         "5 ticks.")
@@ -36,20 +39,19 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
             "the player is standing ontop of.")
     protected NeedExpressionContext radius = ExpressionContext.makeConstant(new NeedExpressionContext(), 0);
 
-    private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
-
     private Function<PlayerEntity, Integer> counter;
-    private Function<BlockState, Boolean> matchFn;
+    private Predicate<BlockState> matchFn;
+    private IncrementalBlockCounter incrementalCounter;
     private double lastCount;
 
     public void onLoaded() {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asManipulator);
+        requestTickUpdate(this::asManipulator);
         super.onLoaded();
     }
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asTrigger);
+        requestTickUpdate(this::asTrigger);
         super.onTriggerLoaded(parentNeed, parentCondition);
     }
 
@@ -61,7 +63,19 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
+        releaseIncrementalCounter();
+    }
+
+    @Override
+    public void onConditionUnloaded() {
+        releaseIncrementalCounter();
+    }
+
+    @Override
+    protected void tagExpressions(final Need need) {
+        super.tagExpressions(need);
+        tagExpression(need, "radius", radius);
     }
 
     @Override
@@ -73,8 +87,8 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return 0;
 
-        amount.setIfRequired(CountedExpressionContext.COUNT, () -> lastCount);
-        return amount.apply(player);
+        amount.setCount(lastCount);
+        return amount.applyAsDouble(player);
     }
 
     @Override
@@ -100,9 +114,14 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
                 counter = this::variableAmountZeroRadius;
                 postFormat = (sb, player) -> sb.append("  (Standing On)").toString();
             } else {
+                // With a fixed size cube, counts can be kept up to date as things change rather than rescanning
+                releaseIncrementalCounter();
+                incrementalCounter = new IncrementalBlockCounter((int) radius, matchFn);
+                MinecraftForge.EVENT_BUS.register(incrementalCounter);
+
                 counter = amount == null || amount.isConstant()
-                        ? (p) -> constantAmountConstantRadius(p, radius)
-                        : (p) -> variableAmountConstantRadius(p, radius);
+                        ? this::constantAmountConstantRadius
+                        : this::variableAmountConstantRadius;
                 final String range = "  (Within " + radius + " Block" + (radius == 1 ? "" : "s") + amountType + ")";
                 postFormat = (sb, player) -> sb.append(range).toString();
             }
@@ -132,7 +151,7 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
      * @return The {@link BlockPos}
      */
     private static BlockPos getBlockAtFeet(final PlayerEntity player) {
-        return new BlockPos(player.posX, player.posY - 1, player.posZ);
+        return WorldQueryContext.get(player).getFeetPos();
     }
 
     /**
@@ -163,32 +182,27 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
      * @return 1 if the block matches, 0 otherwise
      */
     private int variableAmountZeroRadius(final PlayerEntity player) {
-        final BlockPos center = getBlockAtFeet(player);
-        final BlockState state = player.world.getBlockState(center);
-
-        return matchFn.apply(state) ? 1 : 0;
+        return matchFn.test(WorldQueryContext.get(player).getFeetState()) ? 1 : 0;
     }
 
     /**
      * Called if {@link NearBlockManipulator#amount} is constant and {@link NearBlockManipulator#radius}
      * is constant and more than zero
      * @param player The player
-     * @param radius The radius
      * @return 1 if the block matches, 0 otherwise
      */
-    private int constantAmountConstantRadius(final PlayerEntity player, final long radius) {
-        return isWithin(player.world, radius, getBlockAtFeet(player));
+    private int constantAmountConstantRadius(final PlayerEntity player) {
+        return 0 < incrementalCounter.getCount(player, getBlockAtFeet(player)) ? 1 : 0;
     }
 
     /**
      * Called if {@link NearBlockManipulator#amount} is variable and {@link NearBlockManipulator#radius}
      * is constant and more than zero
      * @param player The player
-     * @param radius The radius
      * @return The count of blocks inside the given radius
      */
-    private int variableAmountConstantRadius(final PlayerEntity player, final long radius) {
-        return getCountWithin(player.world, radius, getBlockAtFeet(player));
+    private int variableAmountConstantRadius(final PlayerEntity player) {
+        return incrementalCounter.getCount(player, getBlockAtFeet(player));
     }
 
     /**
@@ -213,20 +227,6 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
         return getCountWithin(player.world, radius.apply(player), getBlockAtFeet(player));
     }
 
-    /**
-     * Checks if the {@link BlockState} matches our predicates
-     * @param state The state
-     * @return True if it does, false otherwise
-     */
-    private boolean isNonVoidMatch(final BlockState state) {
-        if (state.equals(VOID_AIR)) return false;
-
-        for (final IBlockPredicate predicate : blocks) {
-            if (predicate.test(state)) return true;
-        }
-        return false;
-    }
-
     /**
      * Checks if any blocks within the given radius match our predicate; returns on the first match
      * @param world  The {@link World} to check
@@ -236,16 +236,7 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
      */
     private int isWithin(final World world, final double radius, final BlockPos center) {
         if (radius < 0) return 0;
-
-        for (double x = -radius; x <= radius; x += 1d) {
-            for (double y = -radius; y <= radius; y += 1d) {
-                for (double z = -radius; z <= radius; z += 1d) {
-                    if (matchFn.apply(world.getBlockState(center.add(x, y, z)))) return 1;
-                }
-            }
-        }
-
-        return 0;
+        return BlockScanner.any(world, center, (int) Math.floor(radius), matchFn) ? 1 : 0;
     }
 
     /**
@@ -257,19 +248,18 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
      */
     private int getCountWithin(final World world, final double radius, final BlockPos center) {
         if (radius < 0) return 0;
+        return BlockScanner.count(world, center, (int) Math.floor(radius), matchFn);
+    }
 
-        int i = 0;
-        for (double x = -radius; x <= radius; x += 1d) {
-            for (double y = -radius; y <= radius; y += 1d) {
-                for (double z = -radius; z <= radius; z += 1d) {
-                    if (!matchFn.apply(world.getBlockState(center.add(x, y, z)))) continue;
-                    i++;
-                    break;
-                }
-            }
-        }
+    /**
+     * Unregisters and drops the incremental counter, if there is one
+     */
+    private void releaseIncrementalCounter() {
+        if (incrementalCounter == null) return;
 
-        return i;
+        MinecraftForge.EVENT_BUS.unregister(incrementalCounter);
+        incrementalCounter.clear();
+        incrementalCounter = null;
     }
 
     /**
@@ -280,10 +270,6 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
         final IForgeRegistry<Block> blockReg = RegistryManager.ACTIVE.getRegistry(Block.class);
         final Iterator<IBlockPredicate> iter = blocks.iterator();
 
-        /*
-            TODO: There are probably extra optimizations that can be made here, including
-            precompiling a HashSet of states that match when comparing against larger lists of predicates
-        */
         while (iter.hasNext()) {
             final IBlockPredicate predicate = iter.next();
             if (predicate instanceof TagBlockPredicate) continue; // Tags aren't registered yet
@@ -309,33 +295,16 @@ public class NearBlockManipulator extends BlockCheckingManipulator {
     }
 
     /**
-     * Sets the matching function based on if any conditions will match void
+     * Sets the matching function; all of the predicates are compiled down to a single lookup per state
      * @throws IllegalArgumentException If there are no blocks.
      */
     private void setMatchingFunction() throws IllegalArgumentException {
         if (blocks.size() <= 0) {
             throw new IllegalArgumentException("On/near block manipulator has no predicates that will match blocks.");
-        } else if (blocks.size() <= 1) {
-            final IBlockPredicate head = blocks.get(0);
-            matchFn = head::test;
-        } else if (blocks.stream().anyMatch((b) -> b.test(VOID_AIR))) {
-            // If we need to match void blocks, sort the list accordingly
-
-            // Move any predicates that match void air up to the top
-            // This will match out-of-bounds blocks faster
-            blocks.sort((b, b2) -> {
-                if (b.equals(b2)) return 0;
-
-                final boolean va = b.test(VOID_AIR);
-                return va == b2.test(VOID_AIR) ? b.compareTo(b2) : va ? -1 : 1;
-            });
-
-            // Use the matcher that will count void blocks:
-            matchFn = this::isMatch;
-        } else {
-            // Sort the list normally, but use the non-void matcher:
-            blocks.sort(Comparable::compareTo);
-            matchFn = this::isNonVoidMatch;
         }
+
+        // Pick up any removals from checking the block list
+        matcher.invalidate();
+        matchFn = matcher;
     }
 }
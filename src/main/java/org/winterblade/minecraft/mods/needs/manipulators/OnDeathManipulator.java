@@ -30,6 +30,11 @@ public class OnDeathManipulator extends BaseManipulator implements ITrigger {
         // Nothing?
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -39,6 +44,7 @@ public class OnDeathManipulator extends BaseManipulator implements ITrigger {
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         MinecraftForge.EVENT_BUS.addListener(EventPriority.LOWEST, this::asTrigger);
@@ -10,7 +10,6 @@ import org.winterblade.minecraft.mods.needs.api.OptionalField;
 import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.events.NeedAdjustmentEvent;
-import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.expressions.OtherNeedChangedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
 import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
@@ -18,7 +17,6 @@ import org.winterblade.minecraft.mods.needs.api.needs.LazyNeed;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
 
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 @SuppressWarnings("WeakerAccess")
 @Document(description = "Affect this need when another need has changed; do not set to the same need this is applied to. " +
@@ -56,7 +54,8 @@ public class OnNeedChangedManipulator extends BaseManipulator implements ITrigge
     protected boolean checkValue;
     private ITriggerable parentCondition;
 
-    private Supplier<Double> lastValue;
+    private double lastValue;
+    private boolean hasLastValue;
     private double lastCurrent;
     private double lastPrevious;
     private double lastDiff;
@@ -86,6 +85,11 @@ public class OnNeedChangedManipulator extends BaseManipulator implements ITrigge
         if (!this.need.isNot(need)) throw new IllegalArgumentException("onNeedChanged cannot target itself.");
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         onLoadedCommon();
@@ -100,6 +104,7 @@ public class OnNeedChangedManipulator extends BaseManipulator implements ITrigge
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         MinecraftForge.EVENT_BUS.addListener(EventPriority.LOWEST, this::asTrigger);
@@ -121,12 +126,14 @@ public class OnNeedChangedManipulator extends BaseManipulator implements ITrigge
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return 0;
 
-        amount.setIfRequired(NeedExpressionContext.CURRENT_NEED_VALUE, lastValue);
-        amount.setIfRequired(OtherNeedChangedExpressionContext.OTHER, () -> lastCurrent);
-        amount.setIfRequired(OtherNeedChangedExpressionContext.PREVIOUS, () -> lastPrevious);
-        amount.setIfRequired(OtherNeedChangedExpressionContext.CHANGE, () -> lastDiff);
+        if (hasLastValue) {
+            amount.setCurrentNeedValue(lastValue);
+        } else {
+            amount.setCurrentNeedValue(parent, player);
+        }
+        amount.setOtherNeedChange(lastCurrent, lastPrevious, lastDiff);
 
-        return amount.apply(player);
+        return amount.applyAsDouble(player);
     }
 
     protected void asManipulator(final NeedAdjustmentEvent.Post event) {
@@ -155,9 +162,10 @@ public class OnNeedChangedManipulator extends BaseManipulator implements ITrigge
                 final double value = event.getNeed().getValue(event.getPlayer());
                 if (value < minValue || maxValue < value) return;
 
-                lastValue = () -> value;
+                lastValue = value;
+                hasLastValue = true;
             } else {
-                lastValue = () -> parent.getValue(event.getPlayer());
+                hasLastValue = false;
             }
 
             lastCurrent = event.getCurrent();
@@ -35,6 +35,11 @@ public class PerHourManipulator extends BaseManipulator implements ITrigger {
         // Nah?
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -45,6 +50,7 @@ public class PerHourManipulator extends BaseManipulator implements ITrigger {
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         callback = (p) -> parentCondition.trigger(p, this);
         MinecraftForge.EVENT_BUS.addListener(this::onTick);
@@ -44,6 +44,11 @@ public class SleepingManipulator extends BaseManipulator implements ITrigger {
         validateCommon();
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         super.onLoaded();
@@ -53,6 +58,7 @@ public class SleepingManipulator extends BaseManipulator implements ITrigger {
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         if (amount != null) amount.build();
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
@@ -3,8 +3,8 @@ package org.winterblade.minecraft.mods.needs.manipulators;
 import com.google.gson.annotations.Expose;
 import net.minecraft.entity.player.PlayerEntity;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
+import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionBatch;
 import org.winterblade.minecraft.mods.needs.api.expressions.NeedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.manipulators.BaseManipulator;
 import org.winterblade.minecraft.mods.needs.api.manipulators.ITriggerable;
@@ -13,29 +13,46 @@ import org.winterblade.minecraft.mods.needs.api.needs.Need;
 @Document(description = "Triggered on tick")
 public class TickManipulator extends BaseManipulator implements ITrigger {
     @Expose
-    @Document(description = "The amount to adjust by; multiplied by the number of ticks between checks")
+    @Document(description = "The amount to adjust by; multiplied by the number of ticks since the last check (normally " +
+            "the tick rate)")
     protected NeedExpressionContext amount;
 
     private ITriggerable parentCondition;
 
+    /**
+     * Passed to the parent condition in place of this trigger; only ever used from the server thread
+     */
+    private final ElapsedTrigger elapsedTrigger = new ElapsedTrigger();
+
+    /**
+     * Holds the amounts for every player in a bucket while updating them together
+     */
+    private ExpressionBatch batch;
+
     @Override
     public void validate(final Need need) throws IllegalArgumentException {
         if (amount == null) throw new IllegalArgumentException("Amount must be specified.");
         super.validate(need);
     }
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asManipulator);
+        requestBatchTickUpdate(this::asManipulator);
         super.onLoaded();
         amount.build();
     }
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asTrigger);
+        requestElapsedTickUpdate(this::asTrigger);
         if (amount != null) amount.build();
     }
 
@@ -47,21 +64,63 @@ public class TickManipulator extends BaseManipulator implements ITrigger {
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
     }
 
     @Override
     public double getAmount(final PlayerEntity player) {
+        return getAmount(player, getTickRate());
+    }
+
+    /**
+     * Gets the amount for the player, scaled by the number of ticks since they were last checked
+     * @param player  The player
+     * @param elapsed The number of ticks since the last check
+     * @return The amount
+     */
+    private double getAmount(final PlayerEntity player, final int elapsed) {
         if (amount == null) return 0;
         amount.setCurrentNeedValue(parent, player);
-        return amount.apply(player) * TickManager.INSTANCE.getBucketCount();
+        return amount.applyAsDouble(player) * (0 < elapsed ? elapsed : getTickRate());
     }
 
-    private void asManipulator(final PlayerEntity player) {
-        parent.adjustValue(player, getAmount(player), this);
+    private void asManipulator(final PlayerEntity[] players, final int[] elapsed, final int count) {
+        if (batch == null) batch = amount.newBatch(count);
+
+        // Work out everyone's amounts first, then apply them all
+        amount.setCurrentNeedValues(parent, players, batch, count);
+        amount.applyBatch(players, batch, count);
+
+        for (int i = 0; i < count; i++) {
+            parent.adjustValue(players[i], batch.getResult(i) * (0 < elapsed[i] ? elapsed[i] : getTickRate()), this);
+        }
+    }
+
+    private void asTrigger(final PlayerEntity player, final int elapsed) {
+        elapsedTrigger.elapsed = elapsed;
+        parentCondition.trigger(player, elapsedTrigger);
     }
 
-    private void asTrigger(final PlayerEntity player) {
-        parentCondition.trigger(player, this);
+    /**
+     * Stands in for this trigger while checking a player, so that the conditions it triggers get the amount for the
+     * ticks that actually passed; it's reused for every check, with the elapsed ticks set before each one
+     */
+    private class ElapsedTrigger implements ITrigger {
+        private int elapsed;
+
+        @Override
+        public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+            TickManipulator.this.onTriggerLoaded(parentNeed, parentCondition);
+        }
+
+        @Override
+        public void onTriggerUnloaded() {
+            TickManipulator.this.onTriggerUnloaded();
+        }
+
+        @Override
+        public double getAmount(final PlayerEntity player) {
+            return TickManipulator.this.getAmount(player, elapsed);
+        }
     }
 }
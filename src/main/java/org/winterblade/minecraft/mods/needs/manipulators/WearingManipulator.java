@@ -8,7 +8,6 @@ import net.minecraft.item.ItemStack;
 import org.winterblade.minecraft.mods.needs.api.ICondition;
 import org.winterblade.minecraft.mods.needs.api.ITrigger;
 import org.winterblade.minecraft.mods.needs.api.OptionalField;
-import org.winterblade.minecraft.mods.needs.api.TickManager;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.expressions.CountedExpressionContext;
 import org.winterblade.minecraft.mods.needs.api.expressions.ExpressionContext;
@@ -69,10 +68,15 @@ public class WearingManipulator extends TooltipManipulator implements ICondition
     }
 
 
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onLoaded() {
         amount.build();
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asManipulator);
+        requestTickUpdate(this::asManipulator);
         super.onLoaded();
 
         final String amountType = amount.isConstant() || !amount.isRequired(CountedExpressionContext.COUNT) ? "" : ", Per Item";
@@ -100,6 +104,7 @@ public class WearingManipulator extends TooltipManipulator implements ICondition
 
     @Override
     public void onConditionLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
         if (amount != null) amount.build();
@@ -109,9 +114,9 @@ public class WearingManipulator extends TooltipManipulator implements ICondition
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return 0;
 
-        amount.setIfRequired(CountedExpressionContext.COUNT, () -> (double)lastCount);
+        amount.setCount(lastCount);
         amount.setCurrentNeedValue(parent, player);
-        return amount.apply(player);
+        return amount.applyAsDouble(player);
     }
 
     @Override
@@ -140,15 +145,16 @@ public class WearingManipulator extends TooltipManipulator implements ICondition
 
     @Override
     public void onTriggerLoaded(final Need parentNeed, final ITriggerable parentCondition) {
+        tagExpressions(parentNeed);
         this.parent = parentNeed;
         this.parentCondition = parentCondition;
-        TickManager.INSTANCE.requestPlayerTickUpdate(this, this::asTrigger);
+        requestTickUpdate(this::asTrigger);
         if (amount != null) amount.build();
     }
 
     @Override
     public void onTriggerUnloaded() {
-        TickManager.INSTANCE.removePlayerTickUpdate(this);
+        removeTickUpdate();
     }
 
     @Nullable
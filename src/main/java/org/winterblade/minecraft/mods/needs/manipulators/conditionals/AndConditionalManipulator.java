@@ -52,6 +52,11 @@ public class AndConditionalManipulator extends ConditionalManipulator {
      * @param parentNeed      The parent need
      * @param parentCondition The parent condition
      */
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onConditionLoaded(final Need parentNeed, @Nullable final ITriggerable parentCondition) {
         super.onConditionLoaded(parentNeed, parentCondition);
@@ -59,7 +64,8 @@ public class AndConditionalManipulator extends ConditionalManipulator {
             c.onConditionLoaded(parentNeed, this);
             if (amount == null || !amount.isRequired(key)) return;
 
-            args.add((p) -> amount.setIfRequired(key, () -> c.getAmount(p)));
+            final int slot = amount.getSlot(key);
+            args.add((p) -> amount.setLazy(slot, () -> c.getAmount(p)));
             getMatch = true;
         });
 
@@ -84,7 +90,7 @@ public class AndConditionalManipulator extends ConditionalManipulator {
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return lastMatch;
         if (getMatch) args.forEach((arg) -> arg.accept(player));
-        amount.setIfRequired(AndConditionalExpressionContext.SOURCE, () -> lastSource.getAmount(player));
+        amount.setSource(() -> lastSource.getAmount(player));
         return amount.apply(player);
     }
 }
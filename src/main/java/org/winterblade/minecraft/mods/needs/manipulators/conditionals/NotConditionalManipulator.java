@@ -46,6 +46,11 @@ public class NotConditionalManipulator extends ConditionalManipulator {
      * @param parentNeed      The parent need
      * @param parentCondition The parent condition
      */
+    @Override
+    protected void tagExpressions(final Need need) {
+        tagExpression(need, "amount", amount);
+    }
+
     @Override
     public void onConditionLoaded(final Need parentNeed, @Nullable final ITriggerable parentCondition) {
         super.onConditionLoaded(parentNeed, parentCondition);
@@ -74,8 +79,8 @@ public class NotConditionalManipulator extends ConditionalManipulator {
     @Override
     public double getAmount(final PlayerEntity player) {
         if (amount == null) return lastMatch;
-        amount.setIfRequired(OrConditionalExpressionContext.MATCHED_VALUE, () -> lastMatch);
-        amount.setIfRequired(OrConditionalExpressionContext.SOURCE, () -> lastSource.getAmount(player));
+        amount.setMatchedValue(lastMatch);
+        amount.setSource(() -> lastSource.getAmount(player));
         return amount.apply(player);
     }
 }
@@ -29,6 +29,7 @@ public class FilterMixin extends BaseMixin {
     @Override
     public void onLoaded(final Need need) {
         super.onLoaded(need);
+        filter.setOwner(need.getName() + " / FilterMixin.filter");
         filter.build();
         MinecraftForge.EVENT_BUS.register(this);
     }
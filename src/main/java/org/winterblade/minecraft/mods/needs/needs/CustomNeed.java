@@ -10,6 +10,9 @@ import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.needs.Need;
+import org.winterblade.minecraft.mods.needs.api.needs.NeedValueCache;
+import org.winterblade.minecraft.mods.needs.api.registries.NeedRegistry;
+import org.winterblade.minecraft.mods.needs.capabilities.PlayerCapabilities;
 import org.winterblade.minecraft.mods.needs.capabilities.customneed.INeedCapability;
 
 @SuppressWarnings("WeakerAccess")
@@ -42,6 +45,9 @@ public class CustomNeed extends Need {
     @Document(description = "Should the need reset to the initial level upon death")
     protected boolean resetOnDeath;
 
+    // The storage index for this need's name, looked up on first use
+    private int index = -1;
+
     public CustomNeed() {
         min = 0;
         max = 100;
@@ -91,6 +97,12 @@ public class CustomNeed extends Need {
 
     public void setName(final String baseName) {
         name = baseName;
+        index = -1;
+    }
+
+    private int getIndex() {
+        if (index < 0) index = NeedRegistry.INSTANCE.getIndex(getName());
+        return index;
     }
 
     @Override
@@ -100,26 +112,21 @@ public class CustomNeed extends Need {
 
     @Override
     public double getValue(final PlayerEntity player) {
-        return player
-            .getCapability(CAPABILITY)
-                .map((cap) -> cap.getValue(getName()))
-                .orElse(getInitial());
+        final INeedCapability cap = PlayerCapabilities.getNeeds(player);
+        return cap != null ? cap.getValue(getIndex()) : getInitial();
     }
 
     @Override
     public double setValue(final PlayerEntity player, final double newValue, final double adjustAmount) {
-        player
-            .getCapability(CAPABILITY)
-            .ifPresent((cap) -> cap.setValue(getName(), newValue));
+        final INeedCapability cap = PlayerCapabilities.getNeeds(player);
+        if (cap != null) cap.setValue(getIndex(), newValue);
         return newValue;
     }
 
     @Override
     public boolean isValueInitialized(final PlayerEntity player) {
-        return player
-            .getCapability(CAPABILITY)
-                .map((cap) -> cap.isInitialized(getName()))
-                .orElse(false);
+        final INeedCapability cap = PlayerCapabilities.getNeeds(player);
+        return cap != null && cap.isInitialized(getIndex());
     }
 
     @SubscribeEvent
@@ -128,6 +135,7 @@ public class CustomNeed extends Need {
 
         final PlayerEntity entity = (PlayerEntity) event.getEntity();
         setValue(entity, getInitial(), getValue(entity) - getInitial());
+        NeedValueCache.invalidate(this, entity);
     }
 
 }
\ No newline at end of file
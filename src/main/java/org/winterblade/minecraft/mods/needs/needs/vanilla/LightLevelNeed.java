@@ -1,7 +1,7 @@
 package org.winterblade.minecraft.mods.needs.needs.vanilla;
 
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.math.BlockPos;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.needs.ReadOnlyNeed;
 
@@ -24,6 +24,6 @@ public class LightLevelNeed extends ReadOnlyNeed {
 
     @Override
     public double getValue(final PlayerEntity player) {
-        return player.world.getLight(new BlockPos(player));
+        return WorldQueryContext.get(player).getLight();
     }
 }
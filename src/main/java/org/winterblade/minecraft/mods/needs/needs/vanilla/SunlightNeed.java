@@ -1,8 +1,7 @@
 package org.winterblade.minecraft.mods.needs.needs.vanilla;
 
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.LightType;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.needs.ReadOnlyNeed;
 
@@ -25,6 +24,6 @@ public class SunlightNeed extends ReadOnlyNeed {
 
     @Override
     public double getValue(final PlayerEntity player) {
-        return player.world.getLightFor(LightType.SKY, new BlockPos(player));
+        return WorldQueryContext.get(player).getSkyLight();
     }
 }
@@ -1,7 +1,7 @@
 package org.winterblade.minecraft.mods.needs.needs.vanilla;
 
 import net.minecraft.entity.player.PlayerEntity;
-import net.minecraft.util.math.BlockPos;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.needs.ReadOnlyNeed;
 
@@ -24,8 +24,7 @@ public class TemperatureNeed extends ReadOnlyNeed {
 
     @Override
     public double getValue(final PlayerEntity player) {
-        final BlockPos pos = new BlockPos(player);
-        return player.world.getBiome(pos).getTemperature(pos);
+        return WorldQueryContext.get(player).getTemperature();
     }
 
     @Override
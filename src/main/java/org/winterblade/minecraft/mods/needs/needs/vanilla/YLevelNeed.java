@@ -1,6 +1,7 @@
 package org.winterblade.minecraft.mods.needs.needs.vanilla;
 
 import net.minecraft.entity.player.PlayerEntity;
+import org.winterblade.minecraft.mods.needs.api.WorldQueryContext;
 import org.winterblade.minecraft.mods.needs.api.documentation.Document;
 import org.winterblade.minecraft.mods.needs.api.needs.ReadOnlyNeed;
 
@@ -23,6 +24,6 @@ public class YLevelNeed extends ReadOnlyNeed {
 
     @Override
     public double getValue(final PlayerEntity player) {
-        return player.getHeight();
+        return WorldQueryContext.get(player).getPos().getY();
     }
 }
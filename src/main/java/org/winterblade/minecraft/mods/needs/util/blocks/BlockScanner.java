@@ -0,0 +1,217 @@
+package org.winterblade.minecraft.mods.needs.util.blocks;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.SectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import org.winterblade.minecraft.mods.needs.api.TickManager;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Scans boxes of blocks by walking the chunk sections they cover directly, rather than going back through the world
+ * for every block. Sections are cached for the rest of the tick, so any number of scans over the same area only have
+ * to look them up once. This should only be used from the server thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public class BlockScanner {
+    private static final BlockState AIR = Blocks.AIR.getDefaultState();
+    private static final BlockState VOID_AIR = Blocks.VOID_AIR.getDefaultState();
+
+    /**
+     * Stands in for sections which don't exist in the chunk yet; they're entirely air
+     */
+    private static final ChunkSection EMPTY_SECTION = new ChunkSection(0);
+
+    private static final Map<World, WorldSections> sections = new IdentityHashMap<>();
+    private static long cachedTick = -1;
+
+    private BlockScanner() {}
+
+    /**
+     * Checks if any block in the cube around the center matches
+     * @param world   The world to check
+     * @param center  The center of the cube
+     * @param radius  The number of blocks out from the center on each side
+     * @param matcher The matcher to test against
+     * @return True if at least one block matches
+     */
+    public static boolean any(final World world, final BlockPos center, final int radius, final Predicate<BlockState> matcher) {
+        if (radius < 0) return false;
+        return 0 < scan(getSections(world), center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius, matcher, true);
+    }
+
+    /**
+     * Counts the blocks in the cube around the center which match
+     * @param world   The world to check
+     * @param center  The center of the cube
+     * @param radius  The number of blocks out from the center on each side
+     * @param matcher The matcher to test against
+     * @return The number of matching blocks
+     */
+    public static int count(final World world, final BlockPos center, final int radius, final Predicate<BlockState> matcher) {
+        if (radius < 0) return 0;
+        return scan(getSections(world), center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius, matcher, false);
+    }
+
+    /**
+     * Counts the blocks in the box which match; both corners are inclusive
+     * @param world   The world to check
+     * @param minX    The lowest X coordinate
+     * @param minY    The lowest Y coordinate
+     * @param minZ    The lowest Z coordinate
+     * @param maxX    The highest X coordinate
+     * @param maxY    The highest Y coordinate
+     * @param maxZ    The highest Z coordinate
+     * @param matcher The matcher to test against
+     * @return The number of matching blocks
+     */
+    public static int count(final World world, final int minX, final int minY, final int minZ,
+                            final int maxX, final int maxY, final int maxZ, final Predicate<BlockState> matcher) {
+        return scan(getSections(world), minX, minY, minZ, maxX, maxY, maxZ, matcher, false);
+    }
+
+    /**
+     * Walks the box one section at a time
+     * @param source      The sections to check
+     * @param minX        The lowest X coordinate
+     * @param minY        The lowest Y coordinate
+     * @param minZ        The lowest Z coordinate
+     * @param maxX        The highest X coordinate
+     * @param maxY        The highest Y coordinate
+     * @param maxZ        The highest Z coordinate
+     * @param matcher     The matcher to test against
+     * @param stopAtFirst If the scan should stop as soon as it finds a single match
+     * @return The number of matches found
+     */
+    static int scan(final SectionSource source, final int minX, final int minY, final int minZ,
+                            final int maxX, final int maxY, final int maxZ,
+                            final Predicate<BlockState> matcher, final boolean stopAtFirst) {
+        if (maxX < minX || maxY < minY || maxZ < minZ) return 0;
+
+        // Anything above or below the world is void air, same as the world would tell us
+        final int lowY = Math.max(minY, 0);
+        final int highY = Math.min(maxY, source.getHeight() - 1);
+        final int outside = (maxY - minY + 1) - Math.max(highY - lowY + 1, 0);
+
+        int count = 0;
+        if (0 < outside && matcher.test(VOID_AIR)) {
+            count += outside * (maxX - minX + 1) * (maxZ - minZ + 1);
+            if (stopAtFirst) return count;
+        }
+        if (highY < lowY) return count;
+
+        final boolean airMatches = matcher.test(AIR);
+
+        for (int cx = minX >> 4; cx <= maxX >> 4; cx++) {
+            final int x0 = Math.max(minX, cx << 4) & 15;
+            final int x1 = Math.min(maxX, (cx << 4) + 15) & 15;
+
+            for (int cz = minZ >> 4; cz <= maxZ >> 4; cz++) {
+                final int z0 = Math.max(minZ, cz << 4) & 15;
+                final int z1 = Math.min(maxZ, (cz << 4) + 15) & 15;
+
+                for (int sy = lowY >> 4; sy <= highY >> 4; sy++) {
+                    final int y0 = Math.max(lowY, sy << 4) & 15;
+                    final int y1 = Math.min(highY, (sy << 4) + 15) & 15;
+                    final ChunkSection section = source.getSection(cx, sy, cz);
+
+                    // Nothing but air in here, so it's all or nothing
+                    if (section.isEmpty()) {
+                        if (!airMatches) continue;
+
+                        count += (x1 - x0 + 1) * (y1 - y0 + 1) * (z1 - z0 + 1);
+                        if (stopAtFirst) return count;
+                        continue;
+                    }
+
+                    for (int x = x0; x <= x1; x++) {
+                        for (int y = y0; y <= y1; y++) {
+                            for (int z = z0; z <= z1; z++) {
+                                if (!matcher.test(section.getBlockState(x, y, z))) continue;
+
+                                count++;
+                                if (stopAtFirst) return count;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Gets the sections for the world, clearing everything out if this is a new tick
+     * @param world The world
+     * @return The sections
+     */
+    private static WorldSections getSections(final World world) {
+        final long tick = TickManager.INSTANCE.getCurrentTick();
+        if (tick != cachedTick) {
+            sections.clear();
+            cachedTick = tick;
+        }
+
+        return sections.computeIfAbsent(world, WorldSections::new);
+    }
+
+    /**
+     * Where a scan gets its sections from
+     */
+    interface SectionSource {
+        /**
+         * @return The height of the world; everything at or above it is void air
+         */
+        int getHeight();
+
+        /**
+         * Gets the chunk section
+         * @param cx The chunk X coordinate
+         * @param sy The section Y coordinate
+         * @param cz The chunk Z coordinate
+         * @return The section; never null
+         */
+        ChunkSection getSection(int cx, int sy, int cz);
+    }
+
+    /**
+     * The sections of a world which have been looked up so far this tick
+     */
+    private static class WorldSections implements SectionSource {
+        private final World world;
+        private final Map<Long, ChunkSection> cache = new HashMap<>();
+
+        WorldSections(final World world) {
+            this.world = world;
+        }
+
+        @Override
+        public int getHeight() {
+            return world.getHeight();
+        }
+
+        @Override
+        public ChunkSection getSection(final int cx, final int sy, final int cz) {
+            final long key = SectionPos.asLong(cx, sy, cz);
+            ChunkSection section = cache.get(key);
+            if (section != null) return section;
+
+            final Chunk chunk = world.getChunk(cx, cz);
+            section = chunk.getSections()[sy];
+            if (section == null) section = EMPTY_SECTION;
+
+            cache.put(key, section);
+            return section;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.winterblade.minecraft.mods.needs.util.blocks;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.tags.BlockTags;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Flattens a list of block predicates into a single bit per block state, indexed by the global block state ID, so that
+ * testing a state is a single lookup no matter how many predicates there are. The bits are compiled the first time
+ * they're needed, and again any time the block tags are reloaded.
+ */
+@SuppressWarnings("WeakerAccess")
+public class CompiledBlockMatcher implements Predicate<BlockState> {
+    private final List<IBlockPredicate> predicates;
+
+    private BitSet matches;
+    private int tagGeneration;
+
+    /**
+     * Creates the matcher; the list is read when compiling, rather than copied
+     * @param predicates The predicates; a state that matches any of them matches
+     */
+    public CompiledBlockMatcher(final List<IBlockPredicate> predicates) {
+        this.predicates = predicates;
+    }
+
+    @Override
+    public boolean test(final BlockState state) {
+        if (matches == null || tagGeneration != BlockTags.getGeneration()) compile();
+        return matches.get(Block.getStateId(state));
+    }
+
+    /**
+     * Drops the compiled states, so they'll be recompiled the next time they're needed; call this if the predicate
+     * list changes
+     */
+    public void invalidate() {
+        matches = null;
+    }
+
+    /**
+     * Tests every registered state against the predicates
+     */
+    private void compile() {
+        final BitSet compiled = new BitSet(Block.BLOCK_STATE_IDS.size());
+
+        for (final BlockState state : Block.BLOCK_STATE_IDS) {
+            for (final IBlockPredicate predicate : predicates) {
+                if (!predicate.test(state)) continue;
+
+                compiled.set(Block.getStateId(state));
+                break;
+            }
+        }
+
+        matches = compiled;
+        tagGeneration = BlockTags.getGeneration();
+    }
+}
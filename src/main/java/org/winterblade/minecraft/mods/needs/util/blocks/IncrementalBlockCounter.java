@@ -0,0 +1,211 @@
+package org.winterblade.minecraft.mods.needs.util.blocks;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IWorld;
+import net.minecraft.world.World;
+import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.world.BlockEvent;
+import net.minecraftforge.event.world.ExplosionEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.winterblade.minecraft.mods.needs.api.TickManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a running count of the matching blocks in a fixed size cube around each player. Rather than rescanning the
+ * whole cube each time, the count is updated from block change events inside the cube, and by scanning only the slabs
+ * that enter and leave the cube as the player moves. Changes that don't fire events (fluids, pistons, growth, etc) are
+ * picked up by a periodic full rescan.
+ *
+ * This must be registered on the event bus in order to see block changes.
+ */
+@SuppressWarnings("WeakerAccess")
+public class IncrementalBlockCounter {
+    /**
+     * The number of ticks after which the whole cube will be rescanned, regardless of what's happened
+     */
+    private static final int RESYNC_TICKS = 200;
+
+    private final int radius;
+    private final Predicate<BlockState> matcher;
+    private final Map<UUID, Window> windows = new HashMap<>();
+
+    public IncrementalBlockCounter(final int radius, final Predicate<BlockState> matcher) {
+        this.radius = radius;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Gets the number of matching blocks in the cube around the center, bringing the player's count up to date
+     * @param player The player
+     * @param center The center of the cube; generally somewhere around the player
+     * @return The number of matching blocks
+     */
+    public int getCount(final PlayerEntity player, final BlockPos center) {
+        final long tick = TickManager.INSTANCE.getCurrentTick();
+        final Window window = windows.get(player.getUniqueID());
+
+        // New players, players that changed dimensions, and anyone due for a resync get a full scan
+        if (window == null || window.world != player.world || RESYNC_TICKS <= tick - window.syncedTick) {
+            final Window fresh = new Window(player.world, center.toImmutable(), tick);
+            fresh.count = BlockScanner.count(player.world, center, radius, matcher);
+            windows.put(player.getUniqueID(), fresh);
+            return fresh.count;
+        }
+
+        // Apply anything that changed inside the cube since we last looked
+        for (final Map.Entry<BlockPos, Boolean> change : window.pending.entrySet()) {
+            final boolean matches = matcher.test(window.world.getBlockState(change.getKey()));
+            if (matches != change.getValue()) window.count += matches ? 1 : -1;
+        }
+        window.pending.clear();
+
+        if (!center.equals(window.center)) slide(window, center.toImmutable(), tick);
+        return window.count;
+    }
+
+    /**
+     * Forgets all players
+     */
+    public void clear() {
+        windows.clear();
+    }
+
+    @SubscribeEvent
+    public void onBlockBroken(final BlockEvent.BreakEvent event) {
+        // Fired before the block is actually broken, so the state is still the old one
+        recordChange(event.getWorld(), event.getPos(), event.getState());
+    }
+
+    @SubscribeEvent
+    public void onBlockPlaced(final BlockEvent.EntityPlaceEvent event) {
+        recordChange(event.getWorld(), event.getPos(), event.getBlockSnapshot().getReplacedBlock());
+    }
+
+    @SubscribeEvent
+    public void onFluidPlaced(final BlockEvent.FluidPlaceBlockEvent event) {
+        recordChange(event.getWorld(), event.getPos(), event.getOriginalState());
+    }
+
+    @SubscribeEvent
+    public void onExplosion(final ExplosionEvent.Detonate event) {
+        // Fired before the blocks are removed
+        final World world = event.getWorld();
+        for (final BlockPos pos : event.getAffectedBlocks()) {
+            recordChange(world, pos, world.getBlockState(pos));
+        }
+    }
+
+    @SubscribeEvent
+    public void onPlayerLeave(final PlayerEvent.PlayerLoggedOutEvent event) {
+        windows.remove(event.getPlayer().getUniqueID());
+    }
+
+    /**
+     * Marks the position as changed for every cube that contains it; only the first change in between counts is
+     * recorded, as that's the state the count was based on
+     * @param world    The world the change happened in
+     * @param pos      The position that changed
+     * @param oldState The state before the change
+     */
+    private void recordChange(final IWorld world, final BlockPos pos, final BlockState oldState) {
+        if (windows.isEmpty()) return;
+
+        BlockPos immutable = null;
+        Boolean matched = null;
+        for (final Window window : windows.values()) {
+            if (window.world != world || !window.contains(pos, radius)) continue;
+
+            if (immutable == null) {
+                immutable = pos.toImmutable();
+                matched = matcher.test(oldState);
+            }
+            window.pending.putIfAbsent(immutable, matched);
+        }
+    }
+
+    /**
+     * Moves the window to the new center, one axis at a time, scanning only the slab leaving the cube and the slab
+     * entering it for each
+     * @param window The window
+     * @param center The new center
+     * @param tick   The current tick
+     */
+    private void slide(final Window window, final BlockPos center, final long tick) {
+        final int width = radius * 2 + 1;
+        final int[] delta = {
+            center.getX() - window.center.getX(),
+            center.getY() - window.center.getY(),
+            center.getZ() - window.center.getZ()
+        };
+
+        // Moved too far for there to be any overlap, so just start over
+        if (width <= Math.abs(delta[0]) || width <= Math.abs(delta[1]) || width <= Math.abs(delta[2])) {
+            window.center = center;
+            window.count = BlockScanner.count(window.world, center, radius, matcher);
+            window.syncedTick = tick;
+            return;
+        }
+
+        final int[] min = {window.center.getX() - radius, window.center.getY() - radius, window.center.getZ() - radius};
+        final int[] max = {window.center.getX() + radius, window.center.getY() + radius, window.center.getZ() + radius};
+
+        for (int axis = 0; axis < 3; axis++) {
+            final int d = delta[axis];
+            if (d == 0) continue;
+
+            final int[] leaveMin = min.clone();
+            final int[] leaveMax = max.clone();
+            final int[] enterMin = min.clone();
+            final int[] enterMax = max.clone();
+
+            if (0 < d) {
+                leaveMax[axis] = min[axis] + d - 1;
+                enterMin[axis] = max[axis] + 1;
+                enterMax[axis] = max[axis] + d;
+            } else {
+                leaveMin[axis] = max[axis] + d + 1;
+                enterMin[axis] = min[axis] + d;
+                enterMax[axis] = min[axis] - 1;
+            }
+
+            window.count += count(window.world, enterMin, enterMax) - count(window.world, leaveMin, leaveMax);
+            min[axis] += d;
+            max[axis] += d;
+        }
+
+        window.center = center;
+    }
+
+    private int count(final World world, final int[] min, final int[] max) {
+        return BlockScanner.count(world, min[0], min[1], min[2], max[0], max[1], max[2], matcher);
+    }
+
+    /**
+     * The cube around a single player
+     */
+    private static class Window {
+        private final World world;
+        private final Map<BlockPos, Boolean> pending = new HashMap<>();
+        private BlockPos center;
+        private long syncedTick;
+        private int count;
+
+        Window(final World world, final BlockPos center, final long syncedTick) {
+            this.world = world;
+            this.center = center;
+            this.syncedTick = syncedTick;
+        }
+
+        boolean contains(final BlockPos pos, final int radius) {
+            return Math.abs(pos.getX() - center.getX()) <= radius
+                    && Math.abs(pos.getY() - center.getY()) <= radius
+                    && Math.abs(pos.getZ() - center.getZ()) <= radius;
+        }
+    }
+}